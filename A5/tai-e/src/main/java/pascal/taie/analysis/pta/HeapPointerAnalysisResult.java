@@ -0,0 +1,64 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta;
+
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.language.classes.JField;
+import pascal.taie.util.collection.Pair;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Pointer analysis result which also provides the pointers of fields and
+ * array indexes, so that all pointers of the result can be enumerated,
+ * e.g., to dump the result.
+ */
+public interface HeapPointerAnalysisResult extends PointerAnalysisResult {
+
+    /**
+     * @return all static fields which have points-to sets.
+     */
+    Collection<JField> getStaticFields();
+
+    /**
+     * @return all instance fields which have points-to sets,
+     * as pairs of base objects and fields.
+     */
+    Collection<Pair<Obj, JField>> getInstanceFields();
+
+    /**
+     * @return set of Obj pointed to by base.field.
+     */
+    Set<Obj> getPointsToSet(Obj base, JField field);
+
+    /**
+     * @return all array objects whose indexes have points-to sets.
+     */
+    Collection<Obj> getArrays();
+
+    /**
+     * @return set of Obj pointed to by array[*].
+     */
+    Set<Obj> getArrayPointsToSet(Obj array);
+}
@@ -0,0 +1,323 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta;
+
+import pascal.taie.World;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.CallKind;
+import pascal.taie.analysis.graph.callgraph.DefaultCallGraph;
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Pair;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.collection.TwoKeyMap;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Pointer analysis result backed by a memory-mapped snapshot written by
+ * {@link PointerAnalysisSnapshot}. Only the tables of program elements are
+ * decoded when loading, and the points-to sets are read from the mapped
+ * file on demand.
+ */
+public class MappedPointerAnalysisResult implements HeapPointerAnalysisResult {
+
+    private final MappedByteBuffer buffer;
+
+    /**
+     * Start position of the points-to set section in the buffer.
+     */
+    private final int ptsBase;
+
+    private final List<Obj> objs;
+
+    private final Map<Obj, Integer> objIndexes;
+
+    /**
+     * Maps from pointers to the offsets of their points-to sets.
+     */
+    private final Map<Var, Integer> varPts;
+
+    private final Map<JField, Integer> staticFieldPts;
+
+    private final TwoKeyMap<Integer, JField, Integer> instanceFieldPts;
+
+    private final Map<Integer, Integer> arrayIndexPts;
+
+    private final DefaultCallGraph callGraph;
+
+    MappedPointerAnalysisResult(File file, HeapModel heapModel) throws IOException {
+        try (FileChannel channel = FileChannel.open(
+                file.toPath(), StandardOpenOption.READ)) {
+            // the mapping remains valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.getInt() != PointerAnalysisSnapshot.MAGIC
+                || buffer.getInt() != PointerAnalysisSnapshot.VERSION
+                || !readString().equals(file.getName())) {
+            throw new AnalysisException(file + " is not a valid snapshot");
+        }
+        ClassHierarchy hierarchy = World.get().getClassHierarchy();
+        JMethod[] methods = new JMethod[buffer.getInt()];
+        for (int i = 0; i < methods.length; ++i) {
+            methods[i] = resolve(hierarchy.getMethod(readString()));
+        }
+        JField[] fields = new JField[buffer.getInt()];
+        for (int i = 0; i < fields.length; ++i) {
+            fields[i] = resolve(hierarchy.getField(readString()));
+        }
+        Obj[] objArray = new Obj[buffer.getInt()];
+        objIndexes = Maps.newMap(objArray.length);
+        for (int i = 0; i < objArray.length; ++i) {
+            JMethod method = methods[buffer.getInt()];
+            New allocSite = (New) method.getIR().getStmt(buffer.getInt());
+            objArray[i] = heapModel.getObj(allocSite);
+            objIndexes.put(objArray[i], i);
+        }
+        objs = List.of(objArray);
+        int nVars = buffer.getInt();
+        varPts = Maps.newMap(nVars);
+        for (int i = 0; i < nVars; ++i) {
+            Var var = methods[buffer.getInt()].getIR().getVar(buffer.getInt());
+            varPts.put(var, buffer.getInt());
+        }
+        int nStaticFields = buffer.getInt();
+        staticFieldPts = Maps.newMap(nStaticFields);
+        for (int i = 0; i < nStaticFields; ++i) {
+            staticFieldPts.put(fields[buffer.getInt()], buffer.getInt());
+        }
+        int nInstanceFields = buffer.getInt();
+        instanceFieldPts = Maps.newTwoKeyMap();
+        for (int i = 0; i < nInstanceFields; ++i) {
+            instanceFieldPts.put(buffer.getInt(), fields[buffer.getInt()],
+                    buffer.getInt());
+        }
+        int nArrayIndexes = buffer.getInt();
+        arrayIndexPts = Maps.newMap(nArrayIndexes);
+        for (int i = 0; i < nArrayIndexes; ++i) {
+            arrayIndexPts.put(buffer.getInt(), buffer.getInt());
+        }
+        callGraph = new DefaultCallGraph();
+        int nEntries = buffer.getInt();
+        for (int i = 0; i < nEntries; ++i) {
+            callGraph.addEntryMethod(methods[buffer.getInt()]);
+        }
+        int nReachable = buffer.getInt();
+        for (int i = 0; i < nReachable; ++i) {
+            callGraph.addReachableMethod(methods[buffer.getInt()]);
+        }
+        int nEdges = buffer.getInt();
+        CallKind[] kinds = CallKind.values();
+        for (int i = 0; i < nEdges; ++i) {
+            Invoke callSite = (Invoke) methods[buffer.getInt()]
+                    .getIR().getStmt(buffer.getInt());
+            CallKind kind = kinds[buffer.getInt()];
+            callGraph.addEdge(new Edge<>(kind, callSite, methods[buffer.getInt()]));
+        }
+        buffer.getInt(); // size of the points-to set section
+        ptsBase = buffer.position();
+    }
+
+    private String readString() {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static <T> T resolve(T element) {
+        if (element == null) {
+            throw new AnalysisException("Snapshot does not match the program");
+        }
+        return element;
+    }
+
+    @Override
+    public Collection<Var> getVars() {
+        return Collections.unmodifiableSet(varPts.keySet());
+    }
+
+    @Override
+    public Collection<Obj> getObjects() {
+        return objs;
+    }
+
+    @Override
+    public Set<Obj> getPointsToSet(Var var) {
+        Integer offset = varPts.get(var);
+        return offset != null ? new MappedObjSet(offset) : Set.of();
+    }
+
+    @Override
+    public Set<Obj> getPointsToSet(Var base, JField field) {
+        Integer baseOffset = varPts.get(base);
+        if (baseOffset == null) {
+            return Set.of();
+        }
+        Set<Obj> result = Sets.newHybridSet();
+        MappedObjSet basePts = new MappedObjSet(baseOffset);
+        for (int i = 0; i < basePts.size(); ++i) {
+            Integer offset = instanceFieldPts.get(basePts.getIndex(i), field);
+            if (offset != null) {
+                result.addAll(new MappedObjSet(offset));
+            }
+        }
+        return Collections.unmodifiableSet(result);
+    }
+
+    @Override
+    public Set<Obj> getPointsToSet(JField field) {
+        Integer offset = staticFieldPts.get(field);
+        return offset != null ? new MappedObjSet(offset) : Set.of();
+    }
+
+    @Override
+    public Collection<JField> getStaticFields() {
+        return Collections.unmodifiableSet(staticFieldPts.keySet());
+    }
+
+    @Override
+    public Collection<Pair<Obj, JField>> getInstanceFields() {
+        return instanceFieldPts.keyPairSet()
+                .stream()
+                .map(p -> new Pair<>(objs.get(p.key1()), p.key2()))
+                .toList();
+    }
+
+    @Override
+    public Set<Obj> getPointsToSet(Obj base, JField field) {
+        Integer baseIndex = objIndexes.get(base);
+        Integer offset = baseIndex != null ?
+                instanceFieldPts.get(baseIndex, field) : null;
+        return offset != null ? new MappedObjSet(offset) : Set.of();
+    }
+
+    @Override
+    public Collection<Obj> getArrays() {
+        return arrayIndexPts.keySet()
+                .stream()
+                .map(objs::get)
+                .toList();
+    }
+
+    @Override
+    public Set<Obj> getArrayPointsToSet(Obj array) {
+        Integer index = objIndexes.get(array);
+        Integer offset = index != null ? arrayIndexPts.get(index) : null;
+        return offset != null ? new MappedObjSet(offset) : Set.of();
+    }
+
+    @Override
+    public CallGraph<Invoke, JMethod> getCallGraph() {
+        return callGraph;
+    }
+
+    /**
+     * Immutable view of a points-to set in the mapped snapshot, which is
+     * stored as its size followed by the sorted numbers of its objects.
+     */
+    private class MappedObjSet extends AbstractSet<Obj> {
+
+        private final int position;
+
+        private final int size;
+
+        private MappedObjSet(int offset) {
+            this.position = ptsBase + offset;
+            this.size = buffer.getInt(position);
+        }
+
+        private int getIndex(int i) {
+            return buffer.getInt(position + Integer.BYTES * (i + 1));
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            Integer index = objIndexes.get(o);
+            if (index == null) {
+                return false;
+            }
+            int low = 0, high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int midIndex = getIndex(mid);
+                if (midIndex < index) {
+                    low = mid + 1;
+                } else if (midIndex > index) {
+                    high = mid - 1;
+                } else {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Iterator<Obj> iterator() {
+            return new Iterator<>() {
+
+                private int next = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return next < size;
+                }
+
+                @Override
+                public Obj next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return objs.get(getIndex(next++));
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
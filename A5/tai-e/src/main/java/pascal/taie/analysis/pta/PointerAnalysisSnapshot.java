@@ -0,0 +1,331 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.Options;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Binary snapshot of pointer analysis results, which can be loaded by
+ * later runs instead of solving the same program again.
+ * <p>
+ * The snapshot of an analysis is stored in file
+ * {@code <dir>/<analysis-id>-<key>.pta}, where key is a hash of the class
+ * path (including the sizes and modification times of the files on it),
+ * the main class, the version of the Java library (and whether it is
+ * prepended to the class path) and the options of the analysis.
+ * <p>
+ * Program elements are stored by their signatures, e.g., a variable is
+ * stored as the signature of its method and its index in the IR of the
+ * method. An object is stored as one of its allocation sites, which is
+ * mapped back to the object by the heap model when loading.
+ *
+ * @see MappedPointerAnalysisResult
+ */
+public class PointerAnalysisSnapshot {
+
+    private static final Logger logger = LogManager.getLogger(PointerAnalysisSnapshot.class);
+
+    static final int MAGIC = 0x54504341; // "TPCA"
+
+    static final int VERSION = 2;
+
+    private final HeapModel heapModel;
+
+    private final Map<JMethod, Integer> methods = new LinkedHashMap<>();
+
+    private final Map<JField, Integer> fields = new LinkedHashMap<>();
+
+    private final Map<Obj, Integer> objs = new LinkedHashMap<>();
+
+    /**
+     * Records of variables, static fields, instance fields and array
+     * indexes, each one ends with the offset of its points-to set.
+     */
+    private final List<int[]> vars = new ArrayList<>();
+
+    private final List<int[]> staticFields = new ArrayList<>();
+
+    private final List<int[]> instanceFields = new ArrayList<>();
+
+    private final List<int[]> arrayIndexes = new ArrayList<>();
+
+    /**
+     * Interned points-to sets and their offsets in the points-to set section.
+     */
+    private final Map<List<Integer>, Integer> ptsOffsets = Maps.newMap();
+
+    private final ByteArrayOutputStream ptsBytes = new ByteArrayOutputStream();
+
+    private final DataOutputStream ptsOut = new DataOutputStream(ptsBytes);
+
+    /**
+     * @param heapModel the heap model used by the analysis, which is used
+     *                  to find the allocation sites of the objects.
+     */
+    public PointerAnalysisSnapshot(HeapModel heapModel) {
+        this.heapModel = heapModel;
+    }
+
+    public void addVar(Var var, Collection<Obj> pts) {
+        vars.add(new int[]{
+                indexOf(methods, var.getMethod()), var.getIndex(), addPts(pts)});
+    }
+
+    public void addStaticField(JField field, Collection<Obj> pts) {
+        staticFields.add(new int[]{indexOf(fields, field), addPts(pts)});
+    }
+
+    public void addInstanceField(Obj base, JField field, Collection<Obj> pts) {
+        instanceFields.add(new int[]{
+                indexOf(objs, base), indexOf(fields, field), addPts(pts)});
+    }
+
+    public void addArrayIndex(Obj array, Collection<Obj> pts) {
+        arrayIndexes.add(new int[]{indexOf(objs, array), addPts(pts)});
+    }
+
+    /**
+     * Writes this snapshot with the given call graph to {@code file}.
+     */
+    public void write(File file, CallGraph<Invoke, JMethod> callGraph) {
+        // find allocation sites of objects, and number the methods
+        // of the sites before writing the method table
+        Map<Obj, int[]> allocSites = Maps.newMap(objs.size());
+        callGraph.reachableMethods().forEach(method -> {
+            if (method.isAbstract()) {
+                return;
+            }
+            for (Stmt stmt : method.getIR()) {
+                if (stmt instanceof New newStmt) {
+                    Obj obj = heapModel.getObj(newStmt);
+                    if (objs.containsKey(obj) && !allocSites.containsKey(obj)) {
+                        allocSites.put(obj, new int[]{
+                                indexOf(methods, method), stmt.getIndex()});
+                    }
+                }
+            }
+        });
+        for (Obj obj : objs.keySet()) {
+            if (!allocSites.containsKey(obj)) {
+                logger.warn("No allocation site found for {}," +
+                        " skip writing snapshot", obj);
+                return;
+            }
+        }
+        callGraph.reachableMethods().forEach(m -> indexOf(methods, m));
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new AnalysisException("Failed to create directory " + dir);
+        }
+        try (DataOutputStream out = new DataOutputStream(
+                Files.newOutputStream(file.toPath()))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeString(out, file.getName());
+            out.writeInt(methods.size());
+            for (JMethod method : methods.keySet()) {
+                writeString(out, method.getSignature());
+            }
+            out.writeInt(fields.size());
+            for (JField field : fields.keySet()) {
+                writeString(out, field.getSignature());
+            }
+            out.writeInt(objs.size());
+            for (Obj obj : objs.keySet()) {
+                writeInts(out, allocSites.get(obj));
+            }
+            writeRecords(out, vars);
+            writeRecords(out, staticFields);
+            writeRecords(out, instanceFields);
+            writeRecords(out, arrayIndexes);
+            writeMethods(out, callGraph.entryMethods());
+            writeMethods(out, callGraph.reachableMethods());
+            List<Edge<Invoke, JMethod>> edges = callGraph.edges().toList();
+            out.writeInt(edges.size());
+            for (Edge<Invoke, JMethod> edge : edges) {
+                Invoke callSite = edge.getCallSite();
+                writeInts(out, new int[]{
+                        methods.get(callSite.getContainer()),
+                        callSite.getIndex(),
+                        edge.getKind().ordinal(),
+                        methods.get(edge.getCallee())});
+            }
+            out.writeInt(ptsBytes.size());
+            ptsBytes.writeTo(out);
+            logger.info("Wrote pointer analysis snapshot to {}", file);
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to write snapshot " + file, e);
+        }
+    }
+
+    /**
+     * @return the loaded snapshot, or null if the snapshot does not exist
+     * or is invalid.
+     */
+    public static HeapPointerAnalysisResult load(File file, HeapModel heapModel) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            HeapPointerAnalysisResult result =
+                    new MappedPointerAnalysisResult(file, heapModel);
+            logger.info("Loaded pointer analysis snapshot from {}", file);
+            return result;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to load snapshot {}: {}", file, e);
+            return null;
+        }
+    }
+
+    /**
+     * @return the snapshot file of the analysis with the given id and
+     * options (in the current World) in the given directory.
+     */
+    public static File getFile(String dir, String id, AnalysisOptions options) {
+        Options worldOptions = World.get().getOptions();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            String classPath = worldOptions.getClassPath();
+            if (classPath != null) {
+                for (String path : classPath.split(File.pathSeparator)) {
+                    update(digest, path);
+                    Path root = Path.of(path);
+                    if (Files.exists(root)) {
+                        try (Stream<Path> files = Files.walk(root)) {
+                            for (Path p : files.sorted().toList()) {
+                                update(digest, p + ":" + Files.size(p) + ":"
+                                        + Files.getLastModifiedTime(p).toMillis());
+                            }
+                        }
+                    }
+                }
+            }
+            update(digest, worldOptions.getMainClass());
+            update(digest, Integer.toString(worldOptions.getJavaVersion()));
+            update(digest, Boolean.toString(worldOptions.isPrependJVM()));
+            update(digest, options.toString());
+            String key = HexFormat.of().formatHex(digest.digest(), 0, 16);
+            return new File(dir, id + "-" + key + ".pta");
+        } catch (NoSuchAlgorithmException | IOException e) {
+            throw new AnalysisException("Failed to compute snapshot key", e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String s) {
+        digest.update(String.valueOf(s).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static <T> int indexOf(Map<T, Integer> map, T element) {
+        return map.computeIfAbsent(element, e -> map.size());
+    }
+
+    /**
+     * @return the offset of the points-to set in the points-to set section.
+     * Each points-to set is stored as its size followed by the sorted
+     * numbers of its objects.
+     */
+    private int addPts(Collection<Obj> pts) {
+        List<Integer> elements = pts.stream()
+                .map(o -> indexOf(objs, o))
+                .sorted()
+                .toList();
+        return ptsOffsets.computeIfAbsent(elements, e -> {
+            int offset = ptsOut.size();
+            try {
+                ptsOut.writeInt(e.size());
+                for (int i : e) {
+                    ptsOut.writeInt(i);
+                }
+            } catch (IOException ex) {
+                throw new AnalysisException(ex);
+            }
+            return offset;
+        });
+    }
+
+    private void writeMethods(DataOutputStream out, Stream<JMethod> stream)
+            throws IOException {
+        List<JMethod> list = stream.toList();
+        out.writeInt(list.size());
+        for (JMethod method : list) {
+            out.writeInt(methods.get(method));
+        }
+    }
+
+    private static void writeRecords(DataOutputStream out, List<int[]> records)
+            throws IOException {
+        out.writeInt(records.size());
+        for (int[] record : records) {
+            writeInts(out, record);
+        }
+    }
+
+    private static void writeInts(DataOutputStream out, int[] ints)
+            throws IOException {
+        for (int i : ints) {
+            out.writeInt(i);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s)
+            throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Counters and timers of a pointer analysis solver.
+ * <p>
+ * The counters are plain fields, updated by the sequential parts of the
+ * solver, so they cost little enough to be always on. When solving
+ * finishes, the metrics are committed as JFR events, which are recorded
+ * only if a JFR recording is running (e.g., started by
+ * {@code -XX:StartFlightRecording}), and can be written to a JSON report.
+ */
+public class SolverMetrics {
+
+    private static final Logger logger = LogManager.getLogger(SolverMetrics.class);
+
+    /**
+     * Number of the most expensive methods in the report.
+     */
+    private static final int TOP_METHODS = 20;
+
+    private final String solver;
+
+    private final long startTime = System.nanoTime();
+
+    private long solvingTime;
+
+    private long workListPops;
+
+    private long propagatedObjects;
+
+    /**
+     * Number of PFG edges added for each kind of statements.
+     */
+    private final Map<String, Long> pfgEdges = new TreeMap<>();
+
+    private long processCalls;
+
+    private long calleeResolutions;
+
+    /**
+     * Cost (in nanoseconds) of making each method reachable.
+     */
+    private final Map<JMethod, Long> methodCosts = Maps.newMap();
+
+    /**
+     * Histogram of the sizes of points-to sets. Bucket 0 counts empty
+     * sets, and bucket k (k > 0) counts sets of size in [2^(k-1), 2^k).
+     */
+    private final long[] ptsSizes = new long[Integer.SIZE + 1];
+
+    /**
+     * @param solver name of the solver, e.g., "cipta".
+     */
+    public SolverMetrics(String solver) {
+        this.solver = solver;
+    }
+
+    public void countWorkListPop() {
+        ++workListPops;
+    }
+
+    public void countPropagatedObjects(int objects) {
+        propagatedObjects += objects;
+    }
+
+    /**
+     * Counts a PFG edge added for the given statement.
+     */
+    public void countPFGEdge(Stmt stmt) {
+        pfgEdges.merge(stmt.getClass().getSimpleName(), 1L, Long::sum);
+    }
+
+    public void countProcessCall() {
+        ++processCalls;
+    }
+
+    public void countCalleeResolution() {
+        ++calleeResolutions;
+    }
+
+    /**
+     * @return the start time of making a method reachable, which should be
+     * passed to {@link #endMethod(JMethod, int, long)}.
+     */
+    public long startMethod() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Records the cost of making {@code method} reachable, including the
+     * methods which are made reachable during processing {@code method}
+     * (e.g., the callees of its static calls).
+     */
+    public void endMethod(JMethod method, int stmts, long start) {
+        long cost = System.nanoTime() - start;
+        methodCosts.merge(method, cost, Long::sum);
+        AddReachableEvent event = new AddReachableEvent();
+        if (event.shouldCommit()) {
+            event.method = method.getSignature();
+            event.stmts = stmts;
+            event.cost = cost;
+            event.commit();
+        }
+    }
+
+    public void recordPointsToSetSize(int size) {
+        ++ptsSizes[Integer.SIZE - Integer.numberOfLeadingZeros(size)];
+    }
+
+    /**
+     * Finishes the measurement, i.e., logs the metrics, commits them as
+     * JFR events, and writes them to {@code reportFile} if it is not null.
+     */
+    public void finish(String reportFile) {
+        solvingTime = System.nanoTime() - startTime;
+        logger.info("{} solver: {} work-list pops, {} propagated objects," +
+                        " {} processCall, {} callee resolutions, {} ms",
+                solver, workListPops, propagatedObjects, processCalls,
+                calleeResolutions, solvingTime / 1_000_000);
+        SolveEvent event = new SolveEvent();
+        if (event.shouldCommit()) {
+            event.solver = solver;
+            event.workListPops = workListPops;
+            event.propagatedObjects = propagatedObjects;
+            event.pfgEdges = pfgEdges.values().stream().mapToLong(Long::longValue).sum();
+            event.processCalls = processCalls;
+            event.calleeResolutions = calleeResolutions;
+            event.reachableMethods = methodCosts.size();
+            event.solvingTime = solvingTime;
+            event.commit();
+        }
+        if (reportFile != null) {
+            writeReport(new File(reportFile));
+        }
+    }
+
+    private void writeReport(File file) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("solver", solver);
+        report.put("solvingTimeNanos", solvingTime);
+        report.put("workListPops", workListPops);
+        report.put("propagatedObjects", propagatedObjects);
+        report.put("pfgEdges", pfgEdges);
+        report.put("processCalls", processCalls);
+        report.put("calleeResolutions", calleeResolutions);
+        report.put("reachableMethods", methodCosts.size());
+        List<Map<String, Object>> topMethods = new ArrayList<>();
+        methodCosts.entrySet()
+                .stream()
+                .sorted(Map.Entry.<JMethod, Long>comparingByValue(
+                        Comparator.reverseOrder()))
+                .limit(TOP_METHODS)
+                .forEach(e -> topMethods.add(Map.of(
+                        "method", e.getKey().getSignature(),
+                        "costNanos", e.getValue())));
+        report.put("mostExpensiveMethods", topMethods);
+        List<Map<String, Object>> histogram = new ArrayList<>();
+        for (int i = 0; i < ptsSizes.length; ++i) {
+            if (ptsSizes[i] != 0) {
+                long min = i == 0 ? 0 : 1L << (i - 1);
+                long max = i == 0 ? 0 : (1L << i) - 1;
+                histogram.add(Map.of("min", min, "max", max, "count", ptsSizes[i]));
+            }
+        }
+        report.put("pointsToSetSizes", histogram);
+        try {
+            new ObjectMapper()
+                    .writerWithDefaultPrettyPrinter()
+                    .writeValue(file, report);
+            logger.info("Wrote solver metrics to {}", file);
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to write solver metrics to " + file, e);
+        }
+    }
+
+    @Name("pascal.taie.pta.AddReachable")
+    @Label("Add Reachable Method")
+    @Category({"Tai-e", "Pointer Analysis"})
+    static class AddReachableEvent extends Event {
+
+        @Label("Method")
+        String method;
+
+        @Label("Statements")
+        int stmts;
+
+        @Label("Cost")
+        @Timespan
+        long cost;
+    }
+
+    @Name("pascal.taie.pta.Solve")
+    @Label("Pointer Analysis Solving")
+    @Category({"Tai-e", "Pointer Analysis"})
+    static class SolveEvent extends Event {
+
+        @Label("Solver")
+        String solver;
+
+        @Label("Work-List Pops")
+        long workListPops;
+
+        @Label("Propagated Objects")
+        long propagatedObjects;
+
+        @Label("PFG Edges")
+        long pfgEdges;
+
+        @Label("processCall Invocations")
+        long processCalls;
+
+        @Label("Callee Resolutions")
+        long calleeResolutions;
+
+        @Label("Reachable Methods")
+        int reachableMethods;
+
+        @Label("Solving Time")
+        @Timespan
+        long solvingTime;
+    }
+}
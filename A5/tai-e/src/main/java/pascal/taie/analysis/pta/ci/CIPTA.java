@@ -23,10 +23,16 @@
 package pascal.taie.analysis.pta.ci;
 
 import pascal.taie.analysis.ProgramAnalysis;
+import pascal.taie.analysis.pta.HeapPointerAnalysisResult;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.PointerAnalysisSnapshot;
 import pascal.taie.analysis.pta.core.heap.AllocationSiteBasedModel;
 import pascal.taie.analysis.pta.core.heap.HeapModel;
 import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.ConfigException;
+
+import java.io.File;
 
 /**
  * Context-insensitive pointer analysis.
@@ -41,11 +47,44 @@ public class CIPTA extends ProgramAnalysis {
 
     @Override
     public PointerAnalysisResult analyze() {
-        HeapModel heapModel = new AllocationSiteBasedModel(getOptions());
-        Solver solver = new Solver(heapModel);
+        AnalysisOptions options = getOptions();
+        HeapModel heapModel = new AllocationSiteBasedModel(options);
+        String snapshotDir = options.getString("snapshot-dir");
+        File snapshot = null;
+        if (snapshotDir != null) {
+            snapshot = PointerAnalysisSnapshot.getFile(snapshotDir, ID, options);
+            HeapPointerAnalysisResult loaded =
+                    PointerAnalysisSnapshot.load(snapshot, heapModel);
+            if (loaded != null) {
+                new ResultProcessor(options).process(loaded);
+                return loaded;
+            }
+        }
+        Solver solver = new Solver(heapModel,
+                isParallel(options.getString("solver")),
+                options.getBooleanOrDefault("type-filter", false));
         solver.solve();
+        solver.getMetrics().finish(options.getString("metrics-file"));
         CIPTAResult result = solver.getResult();
-        new ResultProcessor(getOptions()).process(result);
-        return result;
+        new ResultProcessor(options).process(result);
+        if (snapshot != null) {
+            result.writeSnapshot(snapshot, heapModel);
+        }
+        return result.freeze();
+    }
+
+    /**
+     * @param solver "worklist" for the sequential work-list solver,
+     *               or "wave" for the parallel wave-propagation solver.
+     */
+    private static boolean isParallel(String solver) {
+        if (solver == null) {
+            return false;
+        }
+        return switch (solver) {
+            case "worklist" -> false;
+            case "wave" -> true;
+            default -> throw new ConfigException("Unknown solver: " + solver);
+        };
     }
 }
@@ -25,7 +25,10 @@ package pascal.taie.analysis.pta.ci;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.pta.HeapPointerAnalysisResult;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.PointerAnalysisSnapshot;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
 import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.stmt.Invoke;
@@ -36,12 +39,13 @@ import pascal.taie.util.collection.Pair;
 import pascal.taie.util.collection.Sets;
 import pascal.taie.util.collection.Views;
 
+import java.io.File;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
-class CIPTAResult implements PointerAnalysisResult {
+class CIPTAResult implements HeapPointerAnalysisResult {
 
     private static final Logger logger = LogManager.getLogger(CIPTAResult.class);
 
@@ -115,6 +119,45 @@ class CIPTAResult implements PointerAnalysisResult {
                 .getObjects();
     }
 
+    @Override
+    public Collection<JField> getStaticFields() {
+        return Views.toMappedCollection(
+                Views.toFilteredCollection(pointerFlowGraph.getPointers(),
+                        StaticField.class::isInstance),
+                p -> ((StaticField) p).getField());
+    }
+
+    @Override
+    public Collection<Pair<Obj, JField>> getInstanceFields() {
+        return Views.toMappedCollection(
+                Views.toFilteredCollection(pointerFlowGraph.getPointers(),
+                        InstanceField.class::isInstance),
+                p -> new Pair<>(((InstanceField) p).getBase(),
+                        ((InstanceField) p).getField()));
+    }
+
+    @Override
+    public Set<Obj> getPointsToSet(Obj base, JField field) {
+        return pointerFlowGraph.getInstanceField(base, field)
+                .getPointsToSet()
+                .getObjects();
+    }
+
+    @Override
+    public Collection<Obj> getArrays() {
+        return Views.toMappedCollection(
+                Views.toFilteredCollection(pointerFlowGraph.getPointers(),
+                        ArrayIndex.class::isInstance),
+                p -> ((ArrayIndex) p).getArray());
+    }
+
+    @Override
+    public Set<Obj> getArrayPointsToSet(Obj array) {
+        return pointerFlowGraph.getArrayIndex(array)
+                .getPointsToSet()
+                .getObjects();
+    }
+
     @Override
     public CallGraph<Invoke, JMethod> getCallGraph() {
         return callGraph;
@@ -123,4 +166,34 @@ class CIPTAResult implements PointerAnalysisResult {
     PointerFlowGraph getPointerFlowGraph() {
         return pointerFlowGraph;
     }
+
+    /**
+     * Writes the snapshot of this result to {@code file}.
+     */
+    void writeSnapshot(File file, HeapModel heapModel) {
+        PointerAnalysisSnapshot snapshot = new PointerAnalysisSnapshot(heapModel);
+        for (Pointer pointer : pointerFlowGraph.getPointers()) {
+            Set<Obj> pts = pointer.getPointsToSet().getObjects();
+            if (pointer instanceof VarPtr varPtr) {
+                snapshot.addVar(varPtr.getVar(), pts);
+            } else if (pointer instanceof StaticField staticField) {
+                snapshot.addStaticField(staticField.getField(), pts);
+            } else if (pointer instanceof InstanceField instanceField) {
+                snapshot.addInstanceField(instanceField.getBase(),
+                        instanceField.getField(), pts);
+            } else if (pointer instanceof ArrayIndex arrayIndex) {
+                snapshot.addArrayIndex(arrayIndex.getArray(), pts);
+            }
+        }
+        snapshot.write(file, callGraph);
+    }
+
+    /**
+     * Converts this result to an immutable and compact form, which does not
+     * refer to the PFG, so that the data structures of the solver can be
+     * released before the clients of this result run.
+     */
+    PointerAnalysisResult freeze() {
+        return new FrozenCIPTAResult(this);
+    }
 }
@@ -0,0 +1,363 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.ci;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable, compact form of {@link CIPTAResult}, which does not refer to
+ * the data structures of the solver (e.g., the PFG and points-to sets).
+ * <p>
+ * Objects, variables and fields are numbered, and the points-to sets are
+ * stored as sorted arrays of object numbers. Equal points-to sets are
+ * interned, i.e., the pointers with equal points-to sets share one array.
+ */
+class FrozenCIPTAResult implements PointerAnalysisResult {
+
+    private static final Logger logger = LogManager.getLogger(FrozenCIPTAResult.class);
+
+    private static final int[] NO_INTS = new int[0];
+
+    /**
+     * Table of all objects, indexed by object number.
+     */
+    private final Obj[] objs;
+
+    private final Map<Obj, Integer> objIndexes;
+
+    /**
+     * Table of interned points-to sets, indexed by points-to set number.
+     */
+    private final ObjSet[] ptsTable;
+
+    /**
+     * Table of all variables, and the number of the points-to set
+     * of each variable, both indexed by variable number.
+     */
+    private final Var[] vars;
+
+    private final int[] varPts;
+
+    private final Map<Var, Integer> varIndexes;
+
+    /**
+     * Map from a static field to the number of its points-to set.
+     */
+    private final Map<JField, Integer> staticFieldPts;
+
+    /**
+     * Numbers of instance fields.
+     */
+    private final Map<JField, Integer> fieldIndexes;
+
+    /**
+     * For each object (indexed by object number), the sorted numbers of
+     * its instance fields and the numbers of their points-to sets.
+     */
+    private final int[][] objFields;
+
+    private final int[][] objFieldPts;
+
+    /**
+     * Cache of the points-to sets of instance fields, keyed by the number
+     * of the points-to set of the base variable and the field number, so
+     * that the variables with equal points-to sets share the entries.
+     */
+    private final Map<Long, Set<Obj>> fieldPtsCache = new ConcurrentHashMap<>();
+
+    private final CallGraph<Invoke, JMethod> callGraph;
+
+    FrozenCIPTAResult(CIPTAResult result) {
+        Collection<Pointer> pointers = result.getPointerFlowGraph().getPointers();
+        Builder builder = new Builder(pointers);
+        List<Var> varList = new ArrayList<>();
+        List<Integer> varPtsList = new ArrayList<>();
+        Map<JField, Integer> staticFieldPts = Maps.newMap();
+        Map<JField, Integer> fieldIndexes = Maps.newMap();
+        List<List<int[]>> fieldEntries = new ArrayList<>();
+        for (int i = 0; i < builder.objs.length; ++i) {
+            fieldEntries.add(new ArrayList<>());
+        }
+        for (Pointer pointer : pointers) {
+            if (pointer instanceof VarPtr varPtr) {
+                varList.add(varPtr.getVar());
+                varPtsList.add(builder.intern(pointer.getPointsToSet()));
+            } else if (pointer instanceof StaticField staticField) {
+                staticFieldPts.put(staticField.getField(),
+                        builder.intern(pointer.getPointsToSet()));
+            } else if (pointer instanceof InstanceField instanceField) {
+                Integer base = builder.objIndexes.get(instanceField.getBase());
+                // fields of the objects which are not pointed to by any
+                // pointer are unreachable via getPointsToSet(Var, JField)
+                if (base != null && !pointer.getPointsToSet().isEmpty()) {
+                    int field = fieldIndexes.computeIfAbsent(
+                            instanceField.getField(), f -> fieldIndexes.size());
+                    fieldEntries.get(base).add(new int[]{
+                            field, builder.intern(pointer.getPointsToSet())});
+                }
+            }
+        }
+        this.objs = builder.objs;
+        this.objIndexes = builder.objIndexes;
+        this.ptsTable = builder.ptsList.toArray(new ObjSet[0]);
+        this.vars = varList.toArray(new Var[0]);
+        this.varPts = varPtsList.stream().mapToInt(Integer::intValue).toArray();
+        this.varIndexes = Maps.newMap(vars.length);
+        for (int i = 0; i < vars.length; ++i) {
+            varIndexes.put(vars[i], i);
+        }
+        this.staticFieldPts = staticFieldPts;
+        this.fieldIndexes = fieldIndexes;
+        this.objFields = new int[objs.length][];
+        this.objFieldPts = new int[objs.length][];
+        for (int i = 0; i < objs.length; ++i) {
+            List<int[]> entries = fieldEntries.get(i);
+            entries.sort((e1, e2) -> Integer.compare(e1[0], e2[0]));
+            objFields[i] = entries.isEmpty() ? NO_INTS : new int[entries.size()];
+            objFieldPts[i] = entries.isEmpty() ? NO_INTS : new int[entries.size()];
+            for (int j = 0; j < entries.size(); ++j) {
+                objFields[i][j] = entries.get(j)[0];
+                objFieldPts[i][j] = entries.get(j)[1];
+            }
+        }
+        this.callGraph = result.getCallGraph();
+        logger.info("Froze {} pointers into {} distinct points-to sets",
+                pointers.size(), ptsTable.length);
+    }
+
+    @Override
+    public Collection<Var> getVars() {
+        return List.of(vars);
+    }
+
+    @Override
+    public Collection<Obj> getObjects() {
+        return List.of(objs);
+    }
+
+    @Override
+    public Set<Obj> getPointsToSet(Var var) {
+        Integer index = varIndexes.get(var);
+        return index != null ? ptsTable[varPts[index]] : Set.of();
+    }
+
+    @Override
+    public Set<Obj> getPointsToSet(Var base, JField field) {
+        if (field.isStatic()) {
+            logger.warn("{} is not instance field", field);
+        }
+        Integer fieldIndex = fieldIndexes.get(field);
+        Integer baseIndex = varIndexes.get(base);
+        if (fieldIndex == null || baseIndex == null) {
+            return Set.of();
+        }
+        int basePts = varPts[baseIndex];
+        return fieldPtsCache.computeIfAbsent(
+                ((long) basePts << 32) | fieldIndex,
+                k -> unionFieldPts(basePts, fieldIndex));
+    }
+
+    /**
+     * @return the union of the points-to sets of the field of
+     * the objects in the given points-to set.
+     */
+    private Set<Obj> unionFieldPts(int basePts, int fieldIndex) {
+        ObjSet result = null;
+        for (int obj : ptsTable[basePts].elements) {
+            int i = Arrays.binarySearch(objFields[obj], fieldIndex);
+            if (i >= 0) {
+                ObjSet pts = ptsTable[objFieldPts[obj][i]];
+                result = result == null ? pts : result.union(pts);
+            }
+        }
+        return result != null ? result : Set.of();
+    }
+
+    @Override
+    public Set<Obj> getPointsToSet(JField field) {
+        if (!field.isStatic()) {
+            logger.warn("{} is not static field", field);
+        }
+        Integer index = staticFieldPts.get(field);
+        return index != null ? ptsTable[index] : Set.of();
+    }
+
+    @Override
+    public CallGraph<Invoke, JMethod> getCallGraph() {
+        return callGraph;
+    }
+
+    /**
+     * Numbers objects and interns points-to sets during freezing.
+     */
+    private static class Builder {
+
+        private final Obj[] objs;
+
+        private final Map<Obj, Integer> objIndexes = Maps.newMap();
+
+        private final List<ObjSet> ptsList = new ArrayList<>();
+
+        private final Map<ObjSet, Integer> ptsIndexes = Maps.newMap();
+
+        /**
+         * Numbers the objects first, so that every points-to set
+         * can be encoded by the object numbers.
+         */
+        private Builder(Collection<Pointer> pointers) {
+            List<Obj> objList = new ArrayList<>();
+            pointers.forEach(p -> p.getPointsToSet().objects().forEach(obj ->
+                    objIndexes.computeIfAbsent(obj, o -> {
+                        objList.add(o);
+                        return objList.size() - 1;
+                    })));
+            objs = objList.toArray(new Obj[0]);
+        }
+
+        /**
+         * @return the number of the interned points-to set
+         * which equals the given one.
+         */
+        private int intern(PointsToSet pts) {
+            int[] elements = pts.objects()
+                    .mapToInt(objIndexes::get)
+                    .sorted()
+                    .toArray();
+            ObjSet objSet = new ObjSet(objs, objIndexes, elements);
+            return ptsIndexes.computeIfAbsent(objSet, s -> {
+                ptsList.add(s);
+                return ptsList.size() - 1;
+            });
+        }
+    }
+
+    /**
+     * Immutable set of objects, represented by the sorted object numbers.
+     */
+    private static class ObjSet extends AbstractSet<Obj> {
+
+        private final Obj[] objs;
+
+        private final Map<Obj, Integer> objIndexes;
+
+        private final int[] elements;
+
+        private ObjSet(Obj[] objs, Map<Obj, Integer> objIndexes, int[] elements) {
+            this.objs = objs;
+            this.objIndexes = objIndexes;
+            this.elements = elements;
+        }
+
+        private ObjSet union(ObjSet other) {
+            int[] result = new int[elements.length + other.elements.length];
+            int i = 0, j = 0, k = 0;
+            while (i < elements.length && j < other.elements.length) {
+                int e1 = elements[i], e2 = other.elements[j];
+                if (e1 <= e2) {
+                    result[k++] = e1;
+                    ++i;
+                    if (e1 == e2) {
+                        ++j;
+                    }
+                } else {
+                    result[k++] = e2;
+                    ++j;
+                }
+            }
+            while (i < elements.length) {
+                result[k++] = elements[i++];
+            }
+            while (j < other.elements.length) {
+                result[k++] = other.elements[j++];
+            }
+            return new ObjSet(objs, objIndexes, Arrays.copyOf(result, k));
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            Integer index = objIndexes.get(o);
+            return index != null && Arrays.binarySearch(elements, index) >= 0;
+        }
+
+        @Override
+        public Iterator<Obj> iterator() {
+            return new Iterator<>() {
+
+                private int next = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return next < elements.length;
+                }
+
+                @Override
+                public Obj next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return objs[elements[next++]];
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return elements.length;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o instanceof ObjSet other && objs == other.objs) {
+                return Arrays.equals(elements, other.elements);
+            }
+            return super.equals(o);
+        }
+
+        @Override
+        public int hashCode() {
+            // consistent with Set.hashCode()
+            return super.hashCode();
+        }
+    }
+}
@@ -29,9 +29,13 @@ package pascal.taie.analysis.pta.ci;
  */
 abstract class Pointer {
 
-    private final PointsToSet pointsToSet = new PointsToSet();
+    private PointsToSet pointsToSet;
 
     PointsToSet getPointsToSet() {
         return pointsToSet;
     }
+
+    void setPointsToSet(PointsToSet pointsToSet) {
+        this.pointsToSet = pointsToSet;
+    }
 }
@@ -20,36 +20,54 @@
  * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
  */
 
+
 package pascal.taie.analysis.pta.ci;
 
+import pascal.taie.analysis.pta.core.heap.IndexedHeapModel;
 import pascal.taie.analysis.pta.core.heap.Obj;
-import pascal.taie.util.collection.Sets;
 
-import java.util.Collections;
+import java.util.AbstractSet;
 import java.util.Iterator;
+import java.util.PrimitiveIterator;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Represents of points-to sets.
+ * <p>
+ * The objects are stored as a bitmap of their indexes
+ * in {@link IndexedHeapModel}.
  */
 class PointsToSet implements Iterable<Obj> {
 
-    private final Set<Obj> set = Sets.newHybridSet();
+    private final IndexedHeapModel heapModel;
+
+    private final SparseBitmap bitmap;
 
     /**
      * Constructs an empty points-to set.
      */
-    PointsToSet() {
+    PointsToSet(IndexedHeapModel heapModel) {
+        this.heapModel = heapModel;
+        this.bitmap = new SparseBitmap();
     }
 
     /**
      * Constructs a points-to set containing one object.
      */
-    PointsToSet(Obj obj) {
+    PointsToSet(IndexedHeapModel heapModel, Obj obj) {
+        this(heapModel);
         addObject(obj);
     }
 
+    private PointsToSet(IndexedHeapModel heapModel, SparseBitmap bitmap) {
+        this.heapModel = heapModel;
+        this.bitmap = bitmap;
+    }
+
     /**
      * Adds an object to this set.
      *
@@ -57,51 +75,116 @@ class PointsToSet implements Iterable<Obj> {
      * otherwise false.
      */
     boolean addObject(Obj obj) {
-        return set.add(obj);
+        return bitmap.add(heapModel.getIndex(obj));
+    }
+
+    /**
+     * Adds all objects in the given set to this set.
+     *
+     * @return true if this points-to set changed as a result of the call,
+     * otherwise false.
+     */
+    boolean addAll(PointsToSet pointsToSet) {
+        return bitmap.addAll(pointsToSet.bitmap);
+    }
+
+    /**
+     * Adds all objects in the given set to this set.
+     *
+     * @return the objects which are newly added to this set.
+     */
+    PointsToSet addAllDiff(PointsToSet pointsToSet) {
+        SparseBitmap diff = new SparseBitmap();
+        bitmap.addAll(pointsToSet.bitmap, diff);
+        return new PointsToSet(heapModel, diff);
+    }
+
+    /**
+     * @return a copy of this set.
+     */
+    PointsToSet copy() {
+        return new PointsToSet(heapModel, new SparseBitmap(bitmap));
+    }
+
+    /**
+     * @return a new set of the objects in this set whose numbers are
+     * set in the given mask.
+     */
+    PointsToSet filter(SparseBitmap mask) {
+        return new PointsToSet(heapModel, bitmap.and(mask));
     }
 
     /**
      * @return true if this points-to set contains the given object, otherwise false.
      */
     boolean contains(Obj obj) {
-        return set.contains(obj);
+        return bitmap.contains(heapModel.getIndex(obj));
     }
 
     /**
      * @return whether this set if empty.
      */
     boolean isEmpty() {
-        return set.isEmpty();
+        return bitmap.isEmpty();
     }
 
     /**
      * @return the number of objects in this set.
      */
     int size() {
-        return set.size();
+        return bitmap.size();
     }
 
     /**
      * @return all objects in this set.
      */
     Stream<Obj> objects() {
-        return set.stream();
+        return StreamSupport.stream(Spliterators.spliterator(iterator(), size(),
+                Spliterator.DISTINCT | Spliterator.NONNULL), false);
     }
 
     /**
      * @return all objects in this set.
      */
     Set<Obj> getObjects() {
-        return Collections.unmodifiableSet(set);
+        return new AbstractSet<>() {
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof Obj obj && PointsToSet.this.contains(obj);
+            }
+
+            @Override
+            public Iterator<Obj> iterator() {
+                return PointsToSet.this.iterator();
+            }
+
+            @Override
+            public int size() {
+                return PointsToSet.this.size();
+            }
+        };
     }
 
     @Override
     public Iterator<Obj> iterator() {
-        return set.iterator();
+        PrimitiveIterator.OfInt iterator = bitmap.iterator();
+        return new Iterator<>() {
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Obj next() {
+                return heapModel.getObj(iterator.nextInt());
+            }
+        };
     }
 
     @Override
     public String toString() {
-        return set.toString();
+        return getObjects().toString();
     }
 }
@@ -24,10 +24,11 @@ package pascal.taie.analysis.pta.ci;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.pta.HeapPointerAnalysisResult;
+import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.config.AnalysisOptions;
 import pascal.taie.util.AnalysisException;
 import pascal.taie.util.collection.Streams;
-import pascal.taie.util.collection.Views;
 
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -43,10 +44,8 @@ import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Predicate;
-import java.util.function.ToIntFunction;
-
-import static pascal.taie.util.collection.CollectionUtils.sum;
 
 class ResultProcessor {
 
@@ -67,7 +66,11 @@ class ResultProcessor {
         this.options = options;
     }
 
-    void process(CIPTAResult result) {
+    /**
+     * Processes the given result, which is either solved by {@link Solver}
+     * or loaded from a snapshot.
+     */
+    void process(HeapPointerAnalysisResult result) {
         logStatistics(result);
         String action = options.getString("action");
         if (action == null) {
@@ -80,13 +83,12 @@ class ResultProcessor {
         }
     }
 
-    private static void logStatistics(CIPTAResult result) {
+    private static void logStatistics(HeapPointerAnalysisResult result) {
         int vars = result.getVars().size();
-        ToIntFunction<Pointer> getSize = p -> p.getPointsToSet().size();
-        int vptSize = sum(getPointers(result, VarPtr.class), getSize);
-        int sfptSize = sum(getPointers(result, StaticField.class), getSize);
-        int ifptSize = sum(getPointers(result, InstanceField.class), getSize);
-        int aptSize = sum(getPointers(result, ArrayIndex.class), getSize);
+        int vptSize = sum(getVarPointers(result));
+        int sfptSize = sum(getStaticFieldPointers(result));
+        int ifptSize = sum(getInstanceFieldPointers(result));
+        int aptSize = sum(getArrayIndexPointers(result));
         int reachable = result.getCallGraph().getNumberOfMethods();
         int callEdges = result.getCallGraph().getNumberOfEdges();
         logger.info("-------------- Pointer analysis statistics: --------------");
@@ -100,11 +102,15 @@ class ResultProcessor {
         logger.info("----------------------------------------");
     }
 
+    private static int sum(Collection<PointerEntry> pointers) {
+        return pointers.stream().mapToInt(p -> p.pointsToSet().size()).sum();
+    }
+
     private static String format(int i) {
         return formatter.format(i);
     }
 
-    private static void dumpPointsToSet(CIPTAResult result, String output) {
+    private static void dumpPointsToSet(HeapPointerAnalysisResult result, String output) {
         PrintStream out;
         if (output != null) {  // if output file is given, then dump to the file
             File outFile = new File(output);
@@ -117,46 +123,80 @@ class ResultProcessor {
         } else {  // otherwise, dump to System.out
             out = System.out;
         }
-        dumpPointers(out, getPointers(result, VarPtr.class), "variables");
-        dumpPointers(out, getPointers(result, StaticField.class), "static fields");
-        dumpPointers(out, getPointers(result, InstanceField.class), "instance fields");
-        dumpPointers(out, getPointers(result, ArrayIndex.class), "array indexes");
+        dumpPointers(out, getVarPointers(result), "variables");
+        dumpPointers(out, getStaticFieldPointers(result), "static fields");
+        dumpPointers(out, getInstanceFieldPointers(result), "instance fields");
+        dumpPointers(out, getArrayIndexPointers(result), "array indexes");
         if (out != System.out) {
             out.close();
         }
     }
 
-    private static Collection<Pointer> getPointers(
-            CIPTAResult result, Class<? extends Pointer> klass) {
-        return Views.toFilteredCollection(
-                result.getPointerFlowGraph().getPointers(),
-                klass::isInstance);
+    /**
+     * Pointer (represented by the same string as the corresponding
+     * {@link Pointer}) and its points-to set.
+     */
+    private record PointerEntry(String pointer, Set<Obj> pointsToSet) {
+    }
+
+    private static Collection<PointerEntry> getVarPointers(
+            HeapPointerAnalysisResult result) {
+        return result.getVars()
+                .stream()
+                .map(v -> new PointerEntry(v.getMethod() + "/" + v.getName(),
+                        result.getPointsToSet(v)))
+                .toList();
+    }
+
+    private static Collection<PointerEntry> getStaticFieldPointers(
+            HeapPointerAnalysisResult result) {
+        return result.getStaticFields()
+                .stream()
+                .map(f -> new PointerEntry(f.toString(), result.getPointsToSet(f)))
+                .toList();
+    }
+
+    private static Collection<PointerEntry> getInstanceFieldPointers(
+            HeapPointerAnalysisResult result) {
+        return result.getInstanceFields()
+                .stream()
+                .map(p -> new PointerEntry(p.first() + "." + p.second().getName(),
+                        result.getPointsToSet(p.first(), p.second())))
+                .toList();
+    }
+
+    private static Collection<PointerEntry> getArrayIndexPointers(
+            HeapPointerAnalysisResult result) {
+        return result.getArrays()
+                .stream()
+                .map(a -> new PointerEntry(a + "[*]", result.getArrayPointsToSet(a)))
+                .toList();
     }
 
     private static void dumpPointers(
-            PrintStream out, Collection<? extends Pointer> pointers, String desc) {
+            PrintStream out, Collection<PointerEntry> pointers, String desc) {
         out.println(HEADER + desc);
         pointers.stream()
-                .sorted(Comparator.comparing(Pointer::toString))
-                .forEach(p -> out.println(p + SEP + toString(p.getPointsToSet())));
+                .sorted(Comparator.comparing(PointerEntry::pointer))
+                .forEach(p -> out.println(p.pointer() + SEP + toString(p.pointsToSet())));
         out.println();
     }
 
-    private static String toString(PointsToSet pts) {
-        return Streams.toString(pts.objects());
+    private static String toString(Set<Obj> pts) {
+        return Streams.toString(pts.stream());
     }
 
-    private void comparePointsToSet(CIPTAResult result, String input) {
+    private void comparePointsToSet(HeapPointerAnalysisResult result, String input) {
         logger.info("Comparing points-to set with {} ...", input);
         var inputs = readPointsToSets(input);
-        Map<String, Pointer> pointers = new LinkedHashMap<>();
-        addPointers(pointers, getPointers(result, VarPtr.class));
-        addPointers(pointers, getPointers(result, StaticField.class));
-        addPointers(pointers, getPointers(result, InstanceField.class));
-        addPointers(pointers, getPointers(result, ArrayIndex.class));
+        Map<String, PointerEntry> pointers = new LinkedHashMap<>();
+        addPointers(pointers, getVarPointers(result));
+        addPointers(pointers, getStaticFieldPointers(result));
+        addPointers(pointers, getInstanceFieldPointers(result));
+        addPointers(pointers, getArrayIndexPointers(result));
         List<String> mismatches = new ArrayList<>();
         pointers.forEach((pointerStr, pointer) -> {
-            String given = toString(pointer.getPointsToSet());
+            String given = toString(pointer.pointsToSet());
             String expected = inputs.get(pointerStr);
             if (!given.equals(expected)) {
                 mismatches.add(String.format("%s, expected: %s, given: %s",
@@ -191,10 +231,10 @@ class ResultProcessor {
         }
     }
 
-    private static void addPointers(Map<String, Pointer> map,
-                                    Collection<? extends Pointer> pointers) {
+    private static void addPointers(Map<String, PointerEntry> map,
+                                    Collection<PointerEntry> pointers) {
         pointers.stream()
-                .sorted(Comparator.comparing(Pointer::toString))
-                .forEach(p -> map.put(p.toString(), p));
+                .sorted(Comparator.comparing(PointerEntry::pointer))
+                .forEach(p -> map.put(p.pointer(), p));
     }
 }
@@ -25,12 +25,15 @@ package pascal.taie.analysis.pta.ci;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import pascal.taie.World;
+import pascal.taie.analysis.pta.SolverMetrics;
 import pascal.taie.analysis.graph.callgraph.CallGraphs;
 import pascal.taie.analysis.graph.callgraph.CallKind;
 import pascal.taie.analysis.graph.callgraph.DefaultCallGraph;
 import pascal.taie.analysis.graph.callgraph.Edge;
 import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.analysis.pta.core.heap.IndexedHeapModel;
 import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.InvokeExp;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.proginfo.MethodRef;
@@ -38,17 +41,36 @@ import pascal.taie.ir.stmt.*;
 import pascal.taie.language.classes.ClassHierarchy;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
 import pascal.taie.language.type.Type;
 
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 class Solver {
 
     private static final Logger logger = LogManager.getLogger(Solver.class);
 
-    private final HeapModel heapModel;
+    private final IndexedHeapModel heapModel;
+
+    /**
+     * Whether to solve by parallel wave propagation
+     * instead of the sequential work-list loop.
+     */
+    private final boolean parallel;
+
+    /**
+     * Filters objects by the declared types of pointers,
+     * or null if type filtering is disabled.
+     */
+    private final TypeFilter typeFilter;
 
     private DefaultCallGraph callGraph;
 
@@ -56,12 +78,32 @@ class Solver {
 
     private WorkList workList;
 
+    /**
+     * PFG edges which have been checked for cycles.
+     */
+    private MultiMap<Pointer, Pointer> checkedEdges;
+
+    /**
+     * Statistics of merged pointers.
+     */
+    private int equivalentVars;
+
+    private int collapsedCycles;
+
+    private int collapsedPointers;
+
+    private int waves;
+
     private StmtProcessor stmtProcessor;
 
+    private SolverMetrics metrics;
+
     private ClassHierarchy hierarchy;
 
-    Solver(HeapModel heapModel) {
-        this.heapModel = heapModel;
+    Solver(HeapModel heapModel, boolean parallel, boolean typeFilter) {
+        this.heapModel = new IndexedHeapModel(heapModel);
+        this.parallel = parallel;
+        this.typeFilter = typeFilter ? new TypeFilter(this.heapModel) : null;
     }
 
     /**
@@ -76,8 +118,10 @@ class Solver {
      * Initializes pointer analysis.
      */
     private void initialize() {
+        metrics = new SolverMetrics(CIPTA.ID);
         workList = new WorkList();
-        pointerFlowGraph = new PointerFlowGraph();
+        checkedEdges = Maps.newMultiMap();
+        pointerFlowGraph = new PointerFlowGraph(heapModel);
         callGraph = new DefaultCallGraph();
         stmtProcessor = new StmtProcessor();
         hierarchy = World.get().getClassHierarchy();
@@ -93,9 +137,28 @@ class Solver {
     private void addReachable(JMethod method) {
         // TODO - finish me
         if (callGraph.addReachableMethod(method)) {
+            long start = metrics.startMethod();
+            mergeEquivalentVars(method.getIR());
             for (Stmt stmt : method.getIR().getStmts()) {
                 stmt.accept(stmtProcessor);
             }
+            metrics.endMethod(method, method.getIR().getStmts().size(), start);
+        }
+    }
+
+    /**
+     * Merges the pointers of pointer-equivalent variables in the given IR,
+     * so that each class of the variables shares one points-to set.
+     */
+    private void mergeEquivalentVars(IR ir) {
+        for (List<Var> vars : PointerEquivalence.compute(ir)) {
+            Set<Pointer> reps = Sets.newSet();
+            vars.forEach(v -> reps.add(pointerFlowGraph.getRepresentative(
+                    pointerFlowGraph.getVarPtr(v))));
+            if (reps.size() > 1 && canMerge(reps)) {
+                equivalentVars += reps.size() - 1;
+                mergePointers(reps, reps.iterator().next());
+            }
         }
     }
 
@@ -105,25 +168,16 @@ class Solver {
     private class StmtProcessor implements StmtVisitor<Void> {
         // TODO - if you choose to implement addReachable()
         //  via visitor pattern, then finish me
-        Set<Stmt> S;
-
-        StmtProcessor() {
-            S = new HashSet<>();
-        }
-
-        public boolean contains(Stmt stmt) {
-            return S.contains(stmt);
-        }
 
         @Override
         public Void visit(New stmt) {
-            workList.addEntry(pointerFlowGraph.getVarPtr(stmt.getLValue()), new PointsToSet(heapModel.getObj(stmt)));
+            workList.addEntry(pointerFlowGraph.getVarPtr(stmt.getLValue()), new PointsToSet(heapModel, heapModel.getObj(stmt)));
             return StmtVisitor.super.visit(stmt);
         }
 
         @Override
         public Void visit(Copy stmt) {
-            addPFGEdge(pointerFlowGraph.getVarPtr(stmt.getRValue()), pointerFlowGraph.getVarPtr(stmt.getLValue()));
+            addPFGEdge(pointerFlowGraph.getVarPtr(stmt.getRValue()), pointerFlowGraph.getVarPtr(stmt.getLValue()), stmt);
             return StmtVisitor.super.visit(stmt);
         }
 
@@ -136,11 +190,11 @@ class Solver {
                     for (int i = 0; i < method.getParamCount(); ++i) {
                         Var a = stmt.getInvokeExp().getArg(i);
                         Var p = method.getIR().getParam(i);
-                        addPFGEdge(pointerFlowGraph.getVarPtr(a), pointerFlowGraph.getVarPtr(p));
+                        addPFGEdge(pointerFlowGraph.getVarPtr(a), pointerFlowGraph.getVarPtr(p), stmt);
                     }
                     if (stmt.getResult() != null) {
                         for (Var ret : method.getIR().getReturnVars()) {
-                            addPFGEdge(pointerFlowGraph.getVarPtr(ret), pointerFlowGraph.getVarPtr(stmt.getResult()));
+                            addPFGEdge(pointerFlowGraph.getVarPtr(ret), pointerFlowGraph.getVarPtr(stmt.getResult()), stmt);
                         }
                     }
                 }
@@ -151,7 +205,7 @@ class Solver {
         @Override
         public Void visit(StoreField stmt) {
             if (stmt.isStatic()) {
-                addPFGEdge(pointerFlowGraph.getVarPtr(stmt.getRValue()), pointerFlowGraph.getStaticField(stmt.getFieldRef().resolve()));
+                addPFGEdge(pointerFlowGraph.getVarPtr(stmt.getRValue()), pointerFlowGraph.getStaticField(stmt.getFieldRef().resolve()), stmt);
             }
             return StmtVisitor.super.visit(stmt);
         }
@@ -159,24 +213,21 @@ class Solver {
         @Override
         public Void visit(LoadField stmt) {
             if (stmt.isStatic()) {
-                addPFGEdge(pointerFlowGraph.getStaticField(stmt.getFieldRef().resolve()), pointerFlowGraph.getVarPtr(stmt.getLValue()));
+                addPFGEdge(pointerFlowGraph.getStaticField(stmt.getFieldRef().resolve()), pointerFlowGraph.getVarPtr(stmt.getLValue()), stmt);
             }
             return StmtVisitor.super.visit(stmt);
         }
-
-        @Override
-        public Void visitDefault(Stmt stmt) {
-            S.add(stmt);
-            return StmtVisitor.super.visitDefault(stmt);
-        }
     }
 
     /**
-     * Adds an edge "source -> target" to the PFG.
+     * Adds an edge "source -> target" (for statement stmt) to the PFG.
      */
-    private void addPFGEdge(Pointer source, Pointer target) {
+    private void addPFGEdge(Pointer source, Pointer target, Stmt stmt) {
         // TODO - finish me
-        if (pointerFlowGraph.addEdge(source, target)) {
+        source = pointerFlowGraph.getRepresentative(source);
+        target = pointerFlowGraph.getRepresentative(target);
+        if (source != target && pointerFlowGraph.addEdge(source, target)) {
+            metrics.countPFGEdge(stmt);
             if (!source.getPointsToSet().isEmpty()) {
                 workList.addEntry(target, source.getPointsToSet());
             }
@@ -188,39 +239,230 @@ class Solver {
      */
     private void analyze() {
         // TODO - finish me
-        while (!workList.isEmpty()) {
-            WorkList.Entry entry = workList.pollEntry();
-            PointsToSet delta = propagate(entry.pointer(), entry.pointsToSet());
-            if (entry.pointer() instanceof VarPtr) {
-                Var var = ((VarPtr) entry.pointer()).getVar();
+        if (parallel) {
+            analyzeInWaves();
+        } else {
+            while (!workList.isEmpty()) {
+                WorkList.Entry entry = workList.pollEntry();
+                metrics.countWorkListPop();
+                Pointer pointer = pointerFlowGraph.getRepresentative(entry.pointer());
+                PointsToSet delta = propagate(pointer,
+                        filter(pointer, entry.pointsToSet()));
+                if (!delta.isEmpty()) {
+                    metrics.countPropagatedObjects(delta.size());
+                    processMembers(pointer, delta);
+                    detectCycles(pointer);
+                }
+            }
+        }
+        logger.info("Max work-list size: {}", workList.getMaxSize());
+        if (parallel) {
+            logger.info("Solved in {} waves", waves);
+        }
+        pointerFlowGraph.getPointers().forEach(p ->
+                metrics.recordPointsToSetSize(p.getPointsToSet().size()));
+        logger.info("Merged {} pointer-equivalent variables", equivalentVars);
+        logger.info("Collapsed {} pointers in {} PFG cycles",
+                collapsedPointers, collapsedCycles);
+    }
+
+    /**
+     * Wave propagation. Each wave
+     * (1) adds the pending work-list entries to their pointers,
+     * (2) collapses the cycles of the PFG,
+     * (3) propagates points-to sets along the (now acyclic) PFG in
+     * topological order. The units (pointers, and the cycles which cannot
+     * be collapsed) of the same topological level do not depend on each
+     * other, thus they are processed in parallel, each pointer pulling
+     * the points-to sets of its predecessors, and
+     * (4) processes the objects newly added to the pointers, which adds
+     * new PFG edges (e.g., of field accesses and resolved calls) and
+     * work-list entries for the next wave.
+     * Solving terminates when a wave produces no work-list entries.
+     */
+    private void analyzeInWaves() {
+        // new objects of the pointers in the current wave
+        Map<Pointer, PointsToSet> deltas = new ConcurrentHashMap<>();
+        Set<Pointer> dirty = ConcurrentHashMap.newKeySet();
+        while (!workList.isEmpty() || !dirty.isEmpty()) {
+            ++waves;
+            // (1) apply work-list entries
+            while (!workList.isEmpty()) {
+                WorkList.Entry entry = workList.pollEntry();
+                metrics.countWorkListPop();
+                Pointer pointer = pointerFlowGraph.getRepresentative(entry.pointer());
+                PointsToSet delta = pointer.getPointsToSet().addAllDiff(
+                        filter(pointer, entry.pointsToSet()));
+                if (!delta.isEmpty()) {
+                    addDelta(deltas, pointer, delta);
+                }
+            }
+            // (2) collapse cycles. The cycles which cannot be merged
+            // (due to type filtering) remain as units of several pointers.
+            List<List<Pointer>> order = new ArrayList<>();
+            for (Set<Pointer> scc : pointerFlowGraph.getSCCs()) {
+                Pointer rep = scc.iterator().next();
+                if (scc.size() > 1 && !canMerge(scc)) {
+                    order.add(List.copyOf(scc));
+                    continue;
+                }
+                if (scc.size() > 1) {
+                    ++collapsedCycles;
+                    collapsedPointers += scc.size() - 1;
+                    mergePointers(scc, rep);
+                    // pending objects of the merged pointers are not
+                    // processed yet, so they are moved to rep
+                    for (Pointer p : scc) {
+                        PointsToSet delta = deltas.remove(p);
+                        if (delta != null) {
+                            addDelta(deltas, rep, delta);
+                        }
+                    }
+                }
+                order.add(List.of(rep));
+            }
+            // (3) propagate in topological order. Merging may process
+            // new objects, which may merge pointers in turn, so the
+            // pointers are mapped to their (current) representatives.
+            MultiMap<Pointer, Pointer> preds = Maps.newMultiMap();
+            MultiMap<Pointer, Pointer> succs = Maps.newMultiMap();
+            Map<Pointer, Integer> levels = Maps.newMap(order.size());
+            List<List<List<Pointer>>> unitsByLevel = new ArrayList<>();
+            for (List<Pointer> members : order) {
+                List<Pointer> unit = new ArrayList<>(members.size());
+                for (Pointer pointer : members) {
+                    pointer = pointerFlowGraph.getRepresentative(pointer);
+                    if (!levels.containsKey(pointer) && !unit.contains(pointer)) {
+                        unit.add(pointer);
+                    }
+                }
+                if (unit.isEmpty()) {
+                    continue;
+                }
+                // all pointers of a unit are on the same level, which is
+                // computed before the edges inside the unit are added
+                int level = 0;
+                for (Pointer pointer : unit) {
+                    for (Pointer pred : preds.get(pointer)) {
+                        level = Math.max(level, levels.getOrDefault(pred, 0) + 1);
+                    }
+                }
+                if (level == unitsByLevel.size()) {
+                    unitsByLevel.add(new ArrayList<>());
+                }
+                unitsByLevel.get(level).add(unit);
+                for (Pointer pointer : unit) {
+                    levels.put(pointer, level);
+                    for (Pointer succ : pointerFlowGraph.getSuccsOf(pointer)) {
+                        succ = pointerFlowGraph.getRepresentative(succ);
+                        if (succ != pointer) {
+                            preds.put(succ, pointer);
+                            succs.put(pointer, succ);
+                        }
+                    }
+                }
+            }
+            Set<Pointer> reps = Sets.newSet();
+            dirty.forEach(p -> reps.add(pointerFlowGraph.getRepresentative(p)));
+            dirty.clear();
+            dirty.addAll(reps);
+            deltas.keySet().forEach(p -> dirty.addAll(
+                    succs.get(pointerFlowGraph.getRepresentative(p))));
+            // masks are prepared here as they are not thread-safe
+            Map<Pointer, SparseBitmap> masks = Maps.newMap();
+            if (typeFilter != null) {
+                for (Pointer pointer : levels.keySet()) {
+                    SparseBitmap mask = typeFilter.getMask(pointer);
+                    if (mask != null) {
+                        masks.put(pointer, mask);
+                    }
+                }
+            }
+            for (List<List<Pointer>> units : unitsByLevel) {
+                // preds and succs are read-only, and the pointers of a unit
+                // only read the points-to sets of earlier levels and of the
+                // same unit, and only write their own points-to sets, so the
+                // units are processed in parallel without locking. A unit of
+                // a cycle is processed sequentially until it is stable.
+                units.parallelStream().forEach(unit -> {
+                    boolean changed;
+                    do {
+                        changed = false;
+                        for (Pointer pointer : unit) {
+                            if (!dirty.remove(pointer)) {
+                                continue;
+                            }
+                            changed = true;
+                            PointsToSet pts = pointer.getPointsToSet();
+                            PointsToSet delta = new PointsToSet(heapModel);
+                            SparseBitmap mask = masks.get(pointer);
+                            for (Pointer pred : preds.get(pointer)) {
+                                PointsToSet predPts = pred.getPointsToSet();
+                                if (mask != null) {
+                                    predPts = predPts.filter(mask);
+                                }
+                                delta.addAll(pts.addAllDiff(predPts));
+                            }
+                            if (!delta.isEmpty()) {
+                                addDelta(deltas, pointer, delta);
+                                dirty.addAll(succs.get(pointer));
+                            }
+                        }
+                    } while (changed && unit.size() > 1);
+                });
+            }
+            // (4) process new objects
+            Map<Pointer, PointsToSet> newObjects = Map.copyOf(deltas);
+            deltas.clear();
+            newObjects.forEach((pointer, delta) -> {
+                metrics.countPropagatedObjects(delta.size());
+                processMembers(pointerFlowGraph.getRepresentative(pointer), delta);
+            });
+        }
+    }
+
+    private static void addDelta(Map<Pointer, PointsToSet> deltas,
+                                 Pointer pointer, PointsToSet delta) {
+        deltas.merge(pointer, delta, (oldDelta, newDelta) -> {
+            oldDelta.addAll(newDelta);
+            return oldDelta;
+        });
+    }
+
+    /**
+     * Processes the statements related to the pointers represented by
+     * {@code rep}, as {@code delta} is added to their points-to set.
+     */
+    private void processMembers(Pointer rep, PointsToSet delta) {
+        for (Pointer member : pointerFlowGraph.getMembers(rep)) {
+            if (member instanceof VarPtr varPtr) {
+                Var var = varPtr.getVar();
+                // the relevant statements of a variable (e.g., its field
+                // accesses) are in the method of the variable, so they are
+                // reachable iff the method is reachable
+                if (!callGraph.contains(var.getMethod())) {
+                    continue;
+                }
                 for (Obj obj : delta) {
                     for (StoreField field : var.getStoreFields()) {
-                        if (stmtProcessor.contains(field)) {
-                            if (field.isStatic()) {
-                                addPFGEdge(pointerFlowGraph.getVarPtr(field.getRValue()), pointerFlowGraph.getStaticField(field.getFieldRef().resolve()));
-                            } else {
-                                addPFGEdge(pointerFlowGraph.getVarPtr(field.getRValue()), pointerFlowGraph.getInstanceField(obj, field.getFieldRef().resolve()));
-                            }
+                        if (field.isStatic()) {
+                            addPFGEdge(pointerFlowGraph.getVarPtr(field.getRValue()), pointerFlowGraph.getStaticField(field.getFieldRef().resolve()), field);
+                        } else {
+                            addPFGEdge(pointerFlowGraph.getVarPtr(field.getRValue()), pointerFlowGraph.getInstanceField(obj, field.getFieldRef().resolve()), field);
                         }
                     }
                     for (LoadField field : var.getLoadFields()) {
-                        if (stmtProcessor.contains(field)) {
-                            if (field.isStatic()) {
-                                addPFGEdge(pointerFlowGraph.getStaticField(field.getFieldRef().resolve()), pointerFlowGraph.getVarPtr(field.getLValue()));
-                            } else {
-                                addPFGEdge(pointerFlowGraph.getInstanceField(obj, field.getFieldRef().resolve()), pointerFlowGraph.getVarPtr(field.getLValue()));
-                            }
+                        if (field.isStatic()) {
+                            addPFGEdge(pointerFlowGraph.getStaticField(field.getFieldRef().resolve()), pointerFlowGraph.getVarPtr(field.getLValue()), field);
+                        } else {
+                            addPFGEdge(pointerFlowGraph.getInstanceField(obj, field.getFieldRef().resolve()), pointerFlowGraph.getVarPtr(field.getLValue()), field);
                         }
                     }
                     for (StoreArray array : var.getStoreArrays()) {
-                        if (stmtProcessor.contains(array)) {
-                            addPFGEdge(pointerFlowGraph.getVarPtr(array.getRValue()), pointerFlowGraph.getArrayIndex(obj));
-                        }
+                        addPFGEdge(pointerFlowGraph.getVarPtr(array.getRValue()), pointerFlowGraph.getArrayIndex(obj), array);
                     }
                     for (LoadArray array : var.getLoadArrays()) {
-                        if (stmtProcessor.contains(array)) {
-                            addPFGEdge(pointerFlowGraph.getArrayIndex(obj), pointerFlowGraph.getVarPtr(array.getLValue()));
-                        }
+                        addPFGEdge(pointerFlowGraph.getArrayIndex(obj), pointerFlowGraph.getVarPtr(array.getLValue()), array);
                     }
                     processCall(var, obj);
                 }
@@ -234,18 +476,90 @@ class Solver {
      */
     private PointsToSet propagate(Pointer pointer, PointsToSet pointsToSet) {
         // TODO - finish me
-        PointsToSet delta = new PointsToSet();
-        if (!pointsToSet.isEmpty()) {
-            for (Obj obj : pointsToSet) {
-                if (pointer.getPointsToSet().addObject(obj)) {
-                    delta.addObject(obj);
+        PointsToSet delta = pointer.getPointsToSet().addAllDiff(pointsToSet);
+        if (!delta.isEmpty()) {
+            for (Pointer succ : pointerFlowGraph.getSuccsOf(pointer)) {
+                succ = pointerFlowGraph.getRepresentative(succ);
+                if (succ != pointer) {
+                    workList.addEntry(succ, delta);
                 }
             }
-            pointerFlowGraph.getSuccsOf(pointer).forEach(succ -> workList.addEntry(succ, delta));
         }
         return delta;
     }
 
+    /**
+     * Lazy cycle detection: a PFG edge whose source and target have
+     * points-to sets of the same size is likely in a cycle, so the cycle
+     * (if any) is searched for and collapsed. Each edge is checked once.
+     */
+    private void detectCycles(Pointer pointer) {
+        int size = pointer.getPointsToSet().size();
+        for (Pointer succ : pointerFlowGraph.getSuccsOf(pointer)) {
+            succ = pointerFlowGraph.getRepresentative(succ);
+            if (succ != pointer
+                    && succ.getPointsToSet().size() == size
+                    && checkedEdges.put(pointer, succ)) {
+                Set<Pointer> cycle = pointerFlowGraph.findCycle(pointer);
+                if (cycle.size() > 1 && canMerge(cycle)) {
+                    ++collapsedCycles;
+                    collapsedPointers += cycle.size() - 1;
+                    mergePointers(cycle, pointer);
+                    // successors of pointer have changed
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the objects in pts which can flow into pointer.
+     */
+    private PointsToSet filter(Pointer pointer, PointsToSet pts) {
+        return typeFilter != null ? typeFilter.filter(pointer, pts) : pts;
+    }
+
+    /**
+     * Pointers can share a points-to set only if the same objects can
+     * flow into them, i.e., they have the same filter type (if any).
+     */
+    private boolean canMerge(Set<Pointer> reps) {
+        if (typeFilter == null) {
+            return true;
+        }
+        Iterator<Pointer> iter = reps.iterator();
+        Type type = typeFilter.getType(iter.next());
+        while (iter.hasNext()) {
+            if (!Objects.equals(type, typeFilter.getType(iter.next()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Merges the given representatives into {@code rep}.
+     * The objects which are new to some merged pointers are
+     * processed as if they were propagated to the pointers.
+     */
+    private void mergePointers(Set<Pointer> reps, Pointer rep) {
+        PointsToSet pts = new PointsToSet(heapModel);
+        reps.forEach(p -> pts.addAll(p.getPointsToSet()));
+        for (Pointer p : reps) {
+            PointsToSet diff = p.getPointsToSet().addAllDiff(pts);
+            if (!diff.isEmpty()) {
+                processMembers(p, diff);
+            }
+        }
+        pointerFlowGraph.merge(reps, rep, pts);
+        for (Pointer succ : pointerFlowGraph.getSuccsOf(rep)) {
+            succ = pointerFlowGraph.getRepresentative(succ);
+            if (succ != rep) {
+                workList.addEntry(succ, pts);
+            }
+        }
+    }
+
     /**
      * Processes instance calls when points-to set of the receiver variable changes.
      *
@@ -254,21 +568,20 @@ class Solver {
      */
     private void processCall(Var var, Obj recv) {
         // TODO - finish me
+        metrics.countProcessCall();
         for (Invoke invoke : var.getInvokes()) {
-            if (stmtProcessor.contains(invoke)) {
-                JMethod method = resolveCallee(recv, invoke);
-                workList.addEntry(pointerFlowGraph.getVarPtr(method.getIR().getThis()), new PointsToSet(recv));
-                if (callGraph.addEdge(new Edge<>(CallGraphs.getCallKind(invoke), invoke, method))) {
-                    addReachable(method);
-                    for (int i = 0; i < method.getParamCount(); ++i) {
-                        Var a = invoke.getInvokeExp().getArg(i);
-                        Var p = method.getIR().getParam(i);
-                        addPFGEdge(pointerFlowGraph.getVarPtr(a), pointerFlowGraph.getVarPtr(p));
-                    }
-                    if (invoke.getResult() != null) {
-                        for (Var ret : method.getIR().getReturnVars()) {
-                            addPFGEdge(pointerFlowGraph.getVarPtr(ret), pointerFlowGraph.getVarPtr(invoke.getResult()));
-                        }
+            JMethod method = resolveCallee(recv, invoke);
+            workList.addEntry(pointerFlowGraph.getVarPtr(method.getIR().getThis()), new PointsToSet(heapModel, recv));
+            if (callGraph.addEdge(new Edge<>(CallGraphs.getCallKind(invoke), invoke, method))) {
+                addReachable(method);
+                for (int i = 0; i < method.getParamCount(); ++i) {
+                    Var a = invoke.getInvokeExp().getArg(i);
+                    Var p = method.getIR().getParam(i);
+                    addPFGEdge(pointerFlowGraph.getVarPtr(a), pointerFlowGraph.getVarPtr(p), invoke);
+                }
+                if (invoke.getResult() != null) {
+                    for (Var ret : method.getIR().getReturnVars()) {
+                        addPFGEdge(pointerFlowGraph.getVarPtr(ret), pointerFlowGraph.getVarPtr(invoke.getResult()), invoke);
                     }
                 }
             }
@@ -284,10 +597,15 @@ class Solver {
      * @return the resolved callee.
      */
     private JMethod resolveCallee(Obj recv, Invoke callSite) {
+        metrics.countCalleeResolution();
         Type type = recv != null ? recv.getType() : null;
         return CallGraphs.resolveCallee(type, callSite);
     }
 
+    SolverMetrics getMetrics() {
+        return metrics;
+    }
+
     CIPTAResult getResult() {
         return new CIPTAResult(pointerFlowGraph, callGraph);
     }
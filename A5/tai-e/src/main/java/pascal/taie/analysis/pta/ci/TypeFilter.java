@@ -0,0 +1,125 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.ci;
+
+import pascal.taie.World;
+import pascal.taie.analysis.pta.core.heap.IndexedHeapModel;
+import pascal.taie.language.classes.ClassNames;
+import pascal.taie.language.type.ArrayType;
+import pascal.taie.language.type.ReferenceType;
+import pascal.taie.language.type.Type;
+import pascal.taie.language.type.TypeSystem;
+import pascal.taie.util.collection.Maps;
+
+import java.util.Map;
+
+/**
+ * Filters the objects flowing into pointers by the declared types of the
+ * pointers, e.g., an object can flow into a variable only if its type is
+ * a subtype of the declared type of the variable.
+ * <p>
+ * For each declared type, the numbers of the compatible objects are kept
+ * in an interned bitmap (mask), which is extended as new objects are
+ * numbered, so filtering a points-to set is one bitmap intersection.
+ */
+class TypeFilter {
+
+    private final IndexedHeapModel heapModel;
+
+    private final TypeSystem typeSystem;
+
+    private final Type objectType;
+
+    private final Map<Type, Mask> masks = Maps.newMap();
+
+    TypeFilter(IndexedHeapModel heapModel) {
+        this.heapModel = heapModel;
+        this.typeSystem = World.get().getTypeSystem();
+        this.objectType = typeSystem.getClassType(ClassNames.OBJECT);
+    }
+
+    /**
+     * @return the type which filters the objects flowing into the given
+     * pointer, or null if the objects are not filtered.
+     */
+    Type getType(Pointer pointer) {
+        Type type;
+        if (pointer instanceof VarPtr varPtr) {
+            type = varPtr.getVar().getType();
+        } else if (pointer instanceof StaticField staticField) {
+            type = staticField.getField().getType();
+        } else if (pointer instanceof InstanceField instanceField) {
+            type = instanceField.getField().getType();
+        } else if (pointer instanceof ArrayIndex arrayIndex
+                && arrayIndex.getArray().getType() instanceof ArrayType arrayType) {
+            type = arrayType.elementType();
+        } else {
+            return null;
+        }
+        // every object is compatible with Object
+        return type instanceof ReferenceType && !type.equals(objectType)
+                ? type : null;
+    }
+
+    /**
+     * @return the mask of the (numbered) objects which can flow into
+     * the given pointer, or null if the objects are not filtered.
+     */
+    SparseBitmap getMask(Pointer pointer) {
+        Type type = getType(pointer);
+        if (type == null) {
+            return null;
+        }
+        Mask mask = masks.computeIfAbsent(type, t -> new Mask());
+        int objs = heapModel.getNumberOfObjs();
+        for (; mask.checked < objs; ++mask.checked) {
+            if (typeSystem.isSubtype(type,
+                    heapModel.getObj(mask.checked).getType())) {
+                mask.bits.add(mask.checked);
+            }
+        }
+        return mask.bits;
+    }
+
+    /**
+     * @return the objects in pts which can flow into the given pointer.
+     */
+    PointsToSet filter(Pointer pointer, PointsToSet pts) {
+        SparseBitmap mask = getMask(pointer);
+        return mask != null ? pts.filter(mask) : pts;
+    }
+
+    /**
+     * Compatible objects of a type.
+     */
+    private static class Mask {
+
+        private final SparseBitmap bits = new SparseBitmap();
+
+        /**
+         * Objects whose numbers are less than this have been checked.
+         */
+        private int checked;
+    }
+}
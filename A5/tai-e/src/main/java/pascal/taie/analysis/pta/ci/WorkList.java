@@ -22,21 +22,60 @@
 
 package pascal.taie.analysis.pta.ci;
 
+import pascal.taie.util.collection.Maps;
+
 import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
 
 /**
  * Represents work list in pointer analysis.
+ * <p>
+ * The work list keeps at most one pending entry for each pointer:
+ * the points-to sets added for a pointer which is already in the work list
+ * are merged into its pending set, so that each pointer is processed
+ * once per wave of propagation.
  */
 class WorkList {
 
-    private final Queue<Entry> entries = new ArrayDeque<>();
+    private final Queue<Pointer> pointers = new ArrayDeque<>();
+
+    private final Map<Pointer, PointsToSet> pendingSets = Maps.newMap();
+
+    /**
+     * Pending sets created by this work list. Other pending sets are
+     * shared with the callers of {@link #addEntry}, thus they are copied
+     * before merging.
+     */
+    private final Set<PointsToSet> ownedSets =
+            Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Maximum number of pending pointers in this work list so far.
+     */
+    private int maxSize = 0;
 
     /**
      * Adds an entry to the work list.
      */
     void addEntry(Pointer pointer, PointsToSet pointsToSet) {
-        entries.add(new Entry(pointer, pointsToSet));
+        PointsToSet pending = pendingSets.get(pointer);
+        if (pending == null) {
+            pendingSets.put(pointer, pointsToSet);
+            pointers.add(pointer);
+            maxSize = Math.max(maxSize, pointers.size());
+        } else if (pending != pointsToSet) {
+            if (!ownedSets.contains(pending)) {
+                PointsToSet merged = pending.copy();
+                pendingSets.put(pointer, merged);
+                ownedSets.add(merged);
+                pending = merged;
+            }
+            pending.addAll(pointsToSet);
+        }
     }
 
     /**
@@ -44,14 +83,27 @@ class WorkList {
      * if this work list is empty.
      */
     Entry pollEntry() {
-        return entries.poll();
+        Pointer pointer = pointers.poll();
+        if (pointer == null) {
+            return null;
+        }
+        PointsToSet pointsToSet = pendingSets.remove(pointer);
+        ownedSets.remove(pointsToSet);
+        return new Entry(pointer, pointsToSet);
     }
 
     /**
      * @return true if the work list is empty, otherwise false.
      */
     boolean isEmpty() {
-        return entries.isEmpty();
+        return pointers.isEmpty();
+    }
+
+    /**
+     * @return the maximum number of pending pointers in this work list so far.
+     */
+    int getMaxSize() {
+        return maxSize;
     }
 
     /**
@@ -0,0 +1,91 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.core.heap;
+
+import pascal.taie.ir.exp.ReferenceLiteral;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Heap model which numbers the objects of another heap model densely,
+ * in the order they are created. The numbers allow points-to sets to be
+ * represented as bitmaps.
+ */
+public class IndexedHeapModel implements HeapModel {
+
+    private final HeapModel heapModel;
+
+    private final Map<Obj, Integer> indexes = Maps.newMap();
+
+    private final List<Obj> objs = new ArrayList<>();
+
+    public IndexedHeapModel(HeapModel heapModel) {
+        this.heapModel = heapModel;
+    }
+
+    @Override
+    public Obj getObj(New allocSite) {
+        return index(heapModel.getObj(allocSite));
+    }
+
+    @Override
+    public Obj getConstantObj(ReferenceLiteral value) {
+        return index(heapModel.getConstantObj(value));
+    }
+
+    private Obj index(Obj obj) {
+        indexes.computeIfAbsent(obj, o -> {
+            objs.add(o);
+            return objs.size() - 1;
+        });
+        return obj;
+    }
+
+    /**
+     * @return the index of given object, or -1 if the object is not
+     * created by this heap model.
+     */
+    public int getIndex(Obj obj) {
+        Integer index = indexes.get(obj);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * @return the object of given index.
+     */
+    public Obj getObj(int index) {
+        return objs.get(index);
+    }
+
+    /**
+     * @return the number of objects created by this heap model.
+     */
+    public int getNumberOfObjs() {
+        return objs.size();
+    }
+}
@@ -22,8 +22,29 @@
 
 package pascal.taie.analysis.pta;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.Test;
+import pascal.taie.World;
 import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.pta.ci.CIPTA;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.LoadField;
+import pascal.taie.language.classes.JField;
+import pascal.taie.util.collection.Streams;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 public class CIPTATest {
 
@@ -78,4 +99,89 @@ public class CIPTATest {
     public void testMergeParam() {
         Tests.testCIPTA(DIR, "MergeParam");
     }
+
+    @Test
+    public void testInstanceFieldWaveSolver() {
+        Tests.testCIPTA(DIR, "InstanceField", "solver:wave");
+    }
+
+    @Test
+    public void testCallWaveSolver() {
+        Tests.testCIPTA(DIR, "Call", "solver:wave");
+    }
+
+    @Test
+    public void testAssign2TypeFilter() {
+        Tests.testCIPTA(DIR, "Assign2", "type-filter:true");
+    }
+
+    @Test
+    public void testInstanceFieldWaveSolverTypeFilter() {
+        Tests.testCIPTA(DIR, "InstanceField", "solver:wave", "type-filter:true");
+    }
+
+    @Test
+    public void testInstanceFieldSnapshot() throws IOException {
+        String dir = Files.createTempDirectory("cipta-snapshot").toString();
+        // the first run solves the program and writes the snapshot
+        Tests.testCIPTA(DIR, "InstanceField", "snapshot-dir:" + dir);
+        PointerAnalysisResult solved = World.get().getResult(CIPTA.ID);
+        // the second run loads the snapshot, whose dump is also
+        // compared with the expected results
+        Tests.testCIPTA(DIR, "InstanceField", "snapshot-dir:" + dir);
+        PointerAnalysisResult loaded = World.get().getResult(CIPTA.ID);
+        assertTrue(loaded instanceof MappedPointerAnalysisResult);
+        assertEquals(getVarPointsToSets(solved), getVarPointsToSets(loaded));
+        assertEquals(solved.getCallGraph().getNumberOfEdges(),
+                loaded.getCallGraph().getNumberOfEdges());
+    }
+
+    @Test
+    public void testInstanceFieldFrozenFieldPointsToSets() {
+        Tests.testCIPTA(DIR, "InstanceField");
+        PointerAnalysisResult result = World.get().getResult(CIPTA.ID);
+        boolean nonEmpty = false;
+        for (Var var : result.getVars()) {
+            for (LoadField load : var.getLoadFields()) {
+                JField field = load.getFieldRef().resolve();
+                Set<Obj> pts = result.getPointsToSet(var, field);
+                // the objects of the field flow to the result of the load
+                assertTrue(result.getPointsToSet(load.getLValue()).containsAll(pts));
+                // the points-to sets of fields are cached
+                assertSame(pts, result.getPointsToSet(var, field));
+                nonEmpty |= !pts.isEmpty();
+            }
+        }
+        assertTrue(nonEmpty);
+    }
+
+    @Test
+    public void testInstanceFieldMetricsReport() throws IOException {
+        File report = File.createTempFile("cipta-metrics", ".json");
+        report.deleteOnExit();
+        Tests.testCIPTA(DIR, "InstanceField", "metrics-file:" + report.getPath());
+        Map<?, ?> metrics = new ObjectMapper().readValue(report, Map.class);
+        assertEquals(CIPTA.ID, metrics.get("solver"));
+        for (String key : new String[]{ "solvingTimeNanos", "propagatedObjects",
+                "processCalls", "calleeResolutions", "mostExpensiveMethods" }) {
+            assertTrue(key, metrics.containsKey(key));
+        }
+        assertTrue(((Number) metrics.get("workListPops")).longValue() > 0);
+        assertTrue(((Number) metrics.get("reachableMethods")).intValue() > 0);
+        assertFalse(((Map<?, ?>) metrics.get("pfgEdges")).isEmpty());
+        assertFalse(((List<?>) metrics.get("pointsToSetSizes")).isEmpty());
+    }
+
+    /**
+     * @return the points-to sets of the variables in the given result,
+     * represented by strings as the results of different runs are
+     * compared.
+     */
+    private static Map<String, String> getVarPointsToSets(
+            PointerAnalysisResult result) {
+        Map<String, String> pts = new TreeMap<>();
+        result.getVars().forEach(v -> pts.put(v.getMethod() + "/" + v.getName(),
+                Streams.toString(result.getPointsToSet(v).stream())));
+        return pts;
+    }
 }
@@ -23,7 +23,7 @@
 package pascal.taie.analysis.pta.core.cs.selector;
 
 import pascal.taie.analysis.pta.core.cs.context.Context;
-import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
 import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
@@ -36,9 +36,23 @@ import pascal.taie.language.type.Type;
  */
 public class _2TypeSelector implements ContextSelector {
 
+    private final TrieContext.Factory factory;
+
+    public _2TypeSelector() {
+        this(new TrieContext.Factory());
+    }
+
+    /**
+     * @param factory the factory of the contexts selected by this selector,
+     *                which can be shared with other selectors.
+     */
+    public _2TypeSelector(TrieContext.Factory factory) {
+        this.factory = factory;
+    }
+
     @Override
     public Context getEmptyContext() {
-        return ListContext.make();
+        return factory.getEmptyContext();
     }
 
     @Override
@@ -50,21 +64,12 @@ public class _2TypeSelector implements ContextSelector {
     @Override
     public Context selectContext(CSCallSite callSite, CSObj recv, JMethod callee) {
         // TODO - finish me
-        Context context = recv.getContext();
-        switch (context.getLength()) {
-            case 0: return ListContext.make(recv.getObject().getContainerType());
-            case 1: return ListContext.make(context.getElementAt(0), recv.getObject().getContainerType());
-            default: return ListContext.make(context.getElementAt(1), recv.getObject().getContainerType());
-        }
+        return factory.append(recv.getContext(), recv.getObject().getContainerType(), 2);
     }
 
     @Override
     public Context selectHeapContext(CSMethod method, Obj obj) {
         // TODO - finish me
-        Context context = method.getContext();
-        switch (context.getLength()) {
-            case 0: return getEmptyContext();
-            default: return ListContext.make(context.getElementAt(context.getLength()-1));
-        }
+        return factory.truncate(method.getContext(), 1);
     }
 }
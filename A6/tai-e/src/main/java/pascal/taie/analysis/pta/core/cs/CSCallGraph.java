@@ -23,6 +23,8 @@
 package pascal.taie.analysis.pta.core.cs;
 
 import pascal.taie.analysis.graph.callgraph.AbstractCallGraph;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.DefaultCallGraph;
 import pascal.taie.analysis.graph.callgraph.Edge;
 import pascal.taie.analysis.pta.core.cs.context.Context;
 import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
@@ -31,6 +33,8 @@ import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
 import pascal.taie.util.collection.Sets;
 import pascal.taie.util.collection.Views;
 
@@ -45,6 +49,21 @@ public class CSCallGraph extends AbstractCallGraph<CSCallSite, CSMethod> {
 
     private final CSManager csManager;
 
+    /**
+     * Call edges to each method, i.e., to all context-sensitive
+     * methods of the method.
+     */
+    private final MultiMap<JMethod, Edge<CSCallSite, CSMethod>> methodToEdges =
+            Maps.newMultiMap();
+
+    private int edgeCount = 0;
+
+    /**
+     * Cache of the context-insensitive projection of this call graph,
+     * which is cleared when this call graph changes.
+     */
+    private CallGraph<Invoke, JMethod> ciProjection;
+
     public CSCallGraph(CSManager csManager) {
         this.csManager = csManager;
     }
@@ -54,6 +73,7 @@ public class CSCallGraph extends AbstractCallGraph<CSCallSite, CSMethod> {
      */
     public void addEntryMethod(CSMethod entryMethod) {
         entryMethods.add(entryMethod);
+        ciProjection = null;
     }
 
     /**
@@ -64,8 +84,12 @@ public class CSCallGraph extends AbstractCallGraph<CSCallSite, CSMethod> {
      */
     public boolean addReachableMethod(CSMethod csMethod) {
         if (reachableMethods.add(csMethod)) {
-            callSitesIn(csMethod).forEach(csCallSite ->
-                    csCallSite.setContainer(csMethod));
+            // the call sites are indexed once the method is reachable
+            for (CSCallSite csCallSite : computeCallSitesIn(csMethod)) {
+                csCallSite.setContainer(csMethod);
+                callSitesIn.put(csMethod, csCallSite);
+            }
+            ciProjection = null;
             return true;
         } else {
             return false;
@@ -82,6 +106,9 @@ public class CSCallGraph extends AbstractCallGraph<CSCallSite, CSMethod> {
     public boolean addEdge(Edge<CSCallSite, CSMethod> edge) {
         if (edge.getCallSite().addEdge(edge)) {
             edge.getCallee().addEdge(edge);
+            methodToEdges.put(edge.getCallee().getMethod(), edge);
+            ++edgeCount;
+            ciProjection = null;
             return true;
         } else {
             return false;
@@ -105,6 +132,11 @@ public class CSCallGraph extends AbstractCallGraph<CSCallSite, CSMethod> {
 
     @Override
     public Set<CSCallSite> getCallSitesIn(CSMethod csMethod) {
+        return reachableMethods.contains(csMethod) ?
+                callSitesIn.get(csMethod) : computeCallSitesIn(csMethod);
+    }
+
+    private Set<CSCallSite> computeCallSitesIn(CSMethod csMethod) {
         JMethod method = csMethod.getMethod();
         Context context = csMethod.getContext();
         Set<CSCallSite> callSites = Sets.newHybridOrderedSet();
@@ -127,13 +159,46 @@ public class CSCallGraph extends AbstractCallGraph<CSCallSite, CSMethod> {
         return csMethod.getEdges().stream();
     }
 
+    /**
+     * @return the call edges to all context-sensitive methods
+     * of given method.
+     */
+    public Stream<Edge<CSCallSite, CSMethod>> edgesInTo(JMethod callee) {
+        return methodToEdges.get(callee).stream();
+    }
+
     @Override
     public Stream<Edge<CSCallSite, CSMethod>> edges() {
-        return reachableMethods.stream()
-                .flatMap(this::callSitesIn)
+        return callSitesIn.values()
+                .stream()
                 .flatMap(this::edgesOutOf);
     }
 
+    @Override
+    public int getNumberOfEdges() {
+        return edgeCount;
+    }
+
+    /**
+     * @return the context-insensitive projection of this call graph.
+     * The projection is cached until this call graph changes.
+     */
+    public CallGraph<Invoke, JMethod> getCIProjection() {
+        if (ciProjection == null) {
+            DefaultCallGraph callGraph = new DefaultCallGraph();
+            entryMethods.forEach(m -> callGraph.addEntryMethod(m.getMethod()));
+            reachableMethods.forEach(m -> callGraph.addReachableMethod(m.getMethod()));
+            // the edges are projected per callee, so that edges to
+            // different contexts of a method are visited together
+            for (JMethod callee : methodToEdges.keySet()) {
+                edgesInTo(callee).forEach(edge -> callGraph.addEdge(new Edge<>(
+                        edge.getKind(), edge.getCallSite().getCallSite(), callee)));
+            }
+            ciProjection = callGraph;
+        }
+        return ciProjection;
+    }
+
     @Override
     public boolean isRelevant(Stmt stmt) {
         throw new UnsupportedOperationException();
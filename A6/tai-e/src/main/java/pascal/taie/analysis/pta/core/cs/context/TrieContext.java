@@ -0,0 +1,224 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.context;
+
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Context represented by a node of a context trie. Contexts created by
+ * the same {@link Factory} are canonical, i.e., two such contexts consist
+ * of the same elements iff they are the same object, thus they are compared
+ * by identity, and each of them has a unique dense id which can be used to
+ * index arrays.
+ */
+public class TrieContext implements Context {
+
+    private final Factory factory;
+
+    private final TrieContext parent;
+
+    private final Object elem;
+
+    private final int length;
+
+    private final int id;
+
+    /**
+     * Child contexts, i.e., this context appended by one element.
+     * Created lazily as most contexts have no children.
+     */
+    private Map<Object, TrieContext> children;
+
+    /**
+     * Cache of this context without its first element.
+     */
+    private TrieContext tail;
+
+    private TrieContext(Factory factory, TrieContext parent,
+                        Object elem, int id) {
+        this.factory = factory;
+        this.parent = parent;
+        this.elem = elem;
+        this.length = parent == null ? 0 : parent.length + 1;
+        this.id = id;
+    }
+
+    /**
+     * @return the id of this context, which is unique among the contexts
+     * created by the same factory, and ranges from 0 to
+     * {@link Factory#getContextCount()} - 1.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return the factory which created this context.
+     */
+    public Factory getFactory() {
+        return factory;
+    }
+
+    @Override
+    public int getLength() {
+        return length;
+    }
+
+    @Override
+    public Object getElementAt(int i) {
+        if (i < 0 || i >= length) {
+            throw new AnalysisException(
+                    "Context " + this + " doesn't have " + i + "-th element");
+        }
+        TrieContext c = this;
+        for (int j = length - 1; j > i; --j) {
+            c = c.parent;
+        }
+        return c.elem;
+    }
+
+    private TrieContext getChild(Object elem) {
+        if (children == null) {
+            children = Maps.newMap(4);
+        }
+        TrieContext child = children.get(elem);
+        if (child == null) {
+            child = new TrieContext(factory, this, elem, factory.nextId());
+            children.put(elem, child);
+        }
+        return child;
+    }
+
+    /**
+     * @return this context without its first element.
+     */
+    private TrieContext getTail() {
+        if (tail == null) {
+            if (length <= 1) {
+                tail = factory.root;
+            } else {
+                tail = parent.getTail().getChild(elem);
+            }
+        }
+        return tail;
+    }
+
+    @Override
+    public int hashCode() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        List<Object> elems = new ArrayList<>(length);
+        for (int i = 0; i < length; ++i) {
+            elems.add(getElementAt(i));
+        }
+        return elems.toString();
+    }
+
+    /**
+     * Creates and canonicalizes trie contexts. Each context selector should
+     * own a factory so that all contexts used in one analysis come
+     * from the same trie.
+     */
+    public static class Factory {
+
+        private final TrieContext root;
+
+        private int count = 0;
+
+        public Factory() {
+            root = new TrieContext(this, null, null, nextId());
+        }
+
+        private int nextId() {
+            return count++;
+        }
+
+        /**
+         * @return the number of contexts created by this factory.
+         */
+        public int getContextCount() {
+            return count;
+        }
+
+        /**
+         * @return the empty context.
+         */
+        public TrieContext getEmptyContext() {
+            return root;
+        }
+
+        /**
+         * @return the context that consists of given elements.
+         */
+        public TrieContext make(Object... elems) {
+            TrieContext c = root;
+            for (Object e : elems) {
+                c = c.getChild(e);
+            }
+            return c;
+        }
+
+        /**
+         * @return the context consisting of the last {@code k} elements
+         * of given context, or the context itself if its length
+         * is not greater than {@code k}.
+         */
+        public TrieContext truncate(Context context, int k) {
+            TrieContext c = canonicalize(context);
+            while (c.length > k) {
+                c = c.getTail();
+            }
+            return c;
+        }
+
+        /**
+         * Appends an element to given context and truncates the result
+         * to its last {@code k} elements.
+         */
+        public TrieContext append(Context context, Object elem, int k) {
+            if (k == 0) {
+                return root;
+            }
+            return truncate(context, k - 1).getChild(elem);
+        }
+
+        private TrieContext canonicalize(Context context) {
+            if (context instanceof TrieContext c && c.factory == this) {
+                return c;
+            }
+            TrieContext c = root;
+            for (int i = 0; i < context.getLength(); ++i) {
+                c = c.getChild(context.getElementAt(i));
+            }
+            return c;
+        }
+    }
+}
@@ -0,0 +1,455 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.element;
+
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link CSManager} which finds context-sensitive elements in open-addressing
+ * tables keyed by a primitive long, i.e., (context id, element index).
+ * <p>
+ * Context ids are the ids of the {@link TrieContext}s created by one factory,
+ * i.e., the factory of the first trie context looked up, as the ids are only
+ * unique among the contexts of the same factory. Other contexts are numbered
+ * by their first occurrence with negative ids. Elements are numbered densely:
+ * objects, methods and fields by their first occurrence, variables and call
+ * sites by the offset of their method plus their index in the method's IR.
+ * Thus, a lookup neither boxes integers nor allocates pairs.
+ * <p>
+ * This class is not thread-safe.
+ */
+public class ArrayCSManager implements CSManager {
+
+    private final Table<CSVar> vars = new Table<>();
+
+    private final Table<CSObj> objs = new Table<>();
+
+    private final Table<CSCallSite> callSites = new Table<>();
+
+    private final Table<CSMethod> methods = new Table<>();
+
+    private final Map<JField, StaticField> staticFields = Maps.newMap();
+
+    private final Table<InstanceField> instanceFields = new Table<>();
+
+    /**
+     * Array index pointers, indexed by {@link CSObj#getIndex()}.
+     */
+    private ArrayIndex[] arrayIndexes = new ArrayIndex[64];
+
+    /**
+     * Context-sensitive variables of each variable,
+     * indexed by the global index of the variable.
+     */
+    private final ArrayList<List<CSVar>> csVarsOf = new ArrayList<>();
+
+    private final List<Var> varList = new ArrayList<>();
+
+    private final List<CSVar> csVarList = new ArrayList<>();
+
+    private final List<CSObj> csObjList = new ArrayList<>();
+
+    private final List<InstanceField> instanceFieldList = new ArrayList<>();
+
+    private final List<ArrayIndex> arrayIndexList = new ArrayList<>();
+
+    private final Map<JMethod, MethodIndex> methodIndexes = Maps.newMap();
+
+    private final IndexTable<Obj> objIndexes = new IndexTable<>();
+
+    private final IndexTable<JField> fieldIndexes = new IndexTable<>();
+
+    /**
+     * Factory of the trie contexts whose ids are used as context ids.
+     */
+    private TrieContext.Factory contextFactory;
+
+    /**
+     * Indexes of the contexts which are not created by
+     * {@link #contextFactory}, from which their ids are computed.
+     */
+    private final IndexTable<Context> contextIndexes = new IndexTable<>();
+
+    /**
+     * Number of variables and statements of all indexed methods.
+     */
+    private int varCount = 0;
+
+    private int stmtCount = 0;
+
+    /**
+     * Cache of the last indexed method, as the solver usually looks up
+     * several elements of one method in a row.
+     */
+    private JMethod lastMethod;
+
+    private MethodIndex lastMethodIndex;
+
+    private final PointsToSetFactory ptsFactory;
+
+    /**
+     * @param ptsKind kind of the points-to sets of the pointers,
+     *                see {@link PointsToSetFactory#PointsToSetFactory(String, CSManager)}.
+     */
+    public ArrayCSManager(String ptsKind) {
+        ptsFactory = new PointsToSetFactory(ptsKind, this);
+    }
+
+    @Override
+    public CSVar getCSVar(Context context, Var var) {
+        int varIndex = getVarIndex(var);
+        long key = key(getContextId(context), varIndex);
+        CSVar csVar = vars.get(key);
+        if (csVar == null) {
+            csVar = initializePointsToSet(new CSVar(var, context));
+            vars.put(key, csVar);
+            csVarList.add(csVar);
+            while (varIndex >= csVarsOf.size()) {
+                csVarsOf.add(null);
+            }
+            List<CSVar> list = csVarsOf.get(varIndex);
+            if (list == null) {
+                list = new ArrayList<>(4);
+                csVarsOf.set(varIndex, list);
+                varList.add(var);
+            }
+            list.add(csVar);
+        }
+        return csVar;
+    }
+
+    @Override
+    public CSObj getCSObj(Context heapContext, Obj obj) {
+        long key = key(getContextId(heapContext), objIndexes.indexOf(obj));
+        CSObj csObj = objs.get(key);
+        if (csObj == null) {
+            csObj = new CSObj(obj, heapContext, csObjList.size());
+            objs.put(key, csObj);
+            csObjList.add(csObj);
+        }
+        return csObj;
+    }
+
+    @Override
+    public CSCallSite getCSCallSite(Context context, Invoke callSite) {
+        long key = key(getContextId(context),
+                getMethodIndex(callSite.getContainer()).stmtBase()
+                        + callSite.getIndex());
+        CSCallSite csCallSite = callSites.get(key);
+        if (csCallSite == null) {
+            csCallSite = new CSCallSite(callSite, context);
+            callSites.put(key, csCallSite);
+        }
+        return csCallSite;
+    }
+
+    @Override
+    public CSMethod getCSMethod(Context context, JMethod method) {
+        long key = key(getContextId(context),
+                getMethodIndex(method).index());
+        CSMethod csMethod = methods.get(key);
+        if (csMethod == null) {
+            csMethod = new CSMethod(method, context);
+            methods.put(key, csMethod);
+        }
+        return csMethod;
+    }
+
+    @Override
+    public StaticField getStaticField(JField field) {
+        return staticFields.computeIfAbsent(field,
+                f -> initializePointsToSet(new StaticField(f)));
+    }
+
+    @Override
+    public InstanceField getInstanceField(CSObj base, JField field) {
+        long key = key(base.getIndex(), fieldIndexes.indexOf(field));
+        InstanceField instanceField = instanceFields.get(key);
+        if (instanceField == null) {
+            instanceField = initializePointsToSet(new InstanceField(base, field));
+            instanceFields.put(key, instanceField);
+            instanceFieldList.add(instanceField);
+        }
+        return instanceField;
+    }
+
+    @Override
+    public ArrayIndex getArrayIndex(CSObj array) {
+        int i = array.getIndex();
+        if (i >= arrayIndexes.length) {
+            arrayIndexes = Arrays.copyOf(arrayIndexes,
+                    Math.max(i + 1, arrayIndexes.length * 2));
+        }
+        ArrayIndex arrayIndex = arrayIndexes[i];
+        if (arrayIndex == null) {
+            arrayIndex = initializePointsToSet(new ArrayIndex(array));
+            arrayIndexes[i] = arrayIndex;
+            arrayIndexList.add(arrayIndex);
+        }
+        return arrayIndex;
+    }
+
+    @Override
+    public Collection<Var> getVars() {
+        return Collections.unmodifiableList(varList);
+    }
+
+    @Override
+    public Collection<CSVar> getCSVarsOf(Var var) {
+        MethodIndex mi = methodIndexes.get(var.getMethod());
+        if (mi != null) {
+            int varIndex = mi.varBase() + var.getIndex();
+            if (varIndex < csVarsOf.size() && csVarsOf.get(varIndex) != null) {
+                return Collections.unmodifiableList(csVarsOf.get(varIndex));
+            }
+        }
+        return Set.of();
+    }
+
+    @Override
+    public Collection<CSVar> getCSVars() {
+        return Collections.unmodifiableList(csVarList);
+    }
+
+    @Override
+    public Collection<CSObj> getObjects() {
+        return Collections.unmodifiableList(csObjList);
+    }
+
+    @Override
+    public CSObj getObject(int index) {
+        return csObjList.get(index);
+    }
+
+    @Override
+    public PointsToSetFactory getPointsToSetFactory() {
+        return ptsFactory;
+    }
+
+    @Override
+    public Collection<StaticField> getStaticFields() {
+        return Collections.unmodifiableCollection(staticFields.values());
+    }
+
+    @Override
+    public Collection<InstanceField> getInstanceFields() {
+        return Collections.unmodifiableList(instanceFieldList);
+    }
+
+    @Override
+    public Collection<ArrayIndex> getArrayIndexes() {
+        return Collections.unmodifiableList(arrayIndexList);
+    }
+
+    private <P extends Pointer> P initializePointsToSet(P pointer) {
+        pointer.setPointsToSet(ptsFactory.make());
+        return pointer;
+    }
+
+    private static long key(int high, int low) {
+        return ((long) high << 32) | (low & 0xffffffffL);
+    }
+
+    private int getContextId(Context context) {
+        if (context instanceof TrieContext trieContext) {
+            if (contextFactory == null) {
+                contextFactory = trieContext.getFactory();
+            }
+            if (trieContext.getFactory() == contextFactory) {
+                return trieContext.getId();
+            }
+        }
+        // other contexts have negative ids so that they never clash
+        // with the ids of the trie contexts
+        return -1 - contextIndexes.indexOf(context);
+    }
+
+    private int getVarIndex(Var var) {
+        return getMethodIndex(var.getMethod()).varBase() + var.getIndex();
+    }
+
+    private MethodIndex getMethodIndex(JMethod method) {
+        if (method == lastMethod) {
+            return lastMethodIndex;
+        }
+        MethodIndex mi = methodIndexes.get(method);
+        if (mi == null) {
+            IR ir = method.getIR();
+            mi = new MethodIndex(methodIndexes.size(), varCount, stmtCount);
+            varCount += ir.getVars().size();
+            stmtCount += ir.getStmts().size();
+            methodIndexes.put(method, mi);
+        }
+        lastMethod = method;
+        lastMethodIndex = mi;
+        return mi;
+    }
+
+    /**
+     * Dense index of a method, and the offsets of its variables and
+     * statements in the global numbering.
+     */
+    private record MethodIndex(int index, int varBase, int stmtBase) {
+    }
+
+    /**
+     * Open-addressing hash table with linear probing which numbers
+     * its keys densely in the order they are added.
+     */
+    private static class IndexTable<K> {
+
+        private Object[] keys = new Object[64];
+
+        private int[] indexes = new int[64];
+
+        private int size = 0;
+
+        /**
+         * @return the index of given key. The key is added to this table
+         * if it is absent.
+         */
+        int indexOf(K key) {
+            int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            for (; keys[i] != null; i = (i + 1) & mask) {
+                if (keys[i].equals(key)) {
+                    return indexes[i];
+                }
+            }
+            if (2 * (size + 1) > keys.length) {
+                resize();
+                mask = keys.length - 1;
+                i = hash(key) & mask;
+                while (keys[i] != null) {
+                    i = (i + 1) & mask;
+                }
+            }
+            keys[i] = key;
+            indexes[i] = size;
+            return size++;
+        }
+
+        private void resize() {
+            Object[] oldKeys = keys;
+            int[] oldIndexes = indexes;
+            keys = new Object[oldKeys.length * 2];
+            indexes = new int[oldIndexes.length * 2];
+            int mask = keys.length - 1;
+            for (int j = 0; j < oldKeys.length; ++j) {
+                if (oldKeys[j] != null) {
+                    int i = hash(oldKeys[j]) & mask;
+                    while (keys[i] != null) {
+                        i = (i + 1) & mask;
+                    }
+                    keys[i] = oldKeys[j];
+                    indexes[i] = oldIndexes[j];
+                }
+            }
+        }
+
+        private static int hash(Object key) {
+            int h = key.hashCode() * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+
+    /**
+     * Open-addressing hash table with linear probing from long keys
+     * to non-null values.
+     */
+    private static class Table<V> {
+
+        private long[] keys = new long[64];
+
+        private Object[] values = new Object[64];
+
+        private int size = 0;
+
+        @SuppressWarnings("unchecked")
+        V get(long key) {
+            int mask = values.length - 1;
+            for (int i = hash(key) & mask; values[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return (V) values[i];
+                }
+            }
+            return null;
+        }
+
+        void put(long key, V value) {
+            if (2 * (size + 1) > values.length) {
+                resize();
+            }
+            int mask = values.length - 1;
+            int i = hash(key) & mask;
+            while (values[i] != null && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (values[i] == null) {
+                ++size;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            Object[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new Object[oldValues.length * 2];
+            int mask = values.length - 1;
+            for (int j = 0; j < oldValues.length; ++j) {
+                if (oldValues[j] != null) {
+                    int i = hash(oldKeys[j]) & mask;
+                    while (values[i] != null) {
+                        i = (i + 1) & mask;
+                    }
+                    keys[i] = oldKeys[j];
+                    values[i] = oldValues[j];
+                }
+            }
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
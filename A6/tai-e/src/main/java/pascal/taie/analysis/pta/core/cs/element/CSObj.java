@@ -24,17 +24,31 @@ package pascal.taie.analysis.pta.core.cs.element;
 
 import pascal.taie.analysis.pta.core.cs.context.Context;
 import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.util.Indexable;
 
 /**
  * Represents context-sensitive objects.
+ * <p>
+ * Context-sensitive objects are numbered densely by the {@link CSManager}
+ * which creates them, in the order they are created, so that points-to sets
+ * can be represented as bitmaps. The manager maps the indexes back to
+ * the objects by {@link CSManager#getObject(int)}.
  */
-public class CSObj extends AbstractCSElement {
+public class CSObj extends AbstractCSElement implements Indexable {
 
     private final Obj obj;
 
-    CSObj(Obj obj, Context context) {
+    private final int index;
+
+    CSObj(Obj obj, Context context, int index) {
         super(context);
         this.obj = obj;
+        this.index = index;
+    }
+
+    @Override
+    public int getIndex() {
+        return index;
     }
 
     /**
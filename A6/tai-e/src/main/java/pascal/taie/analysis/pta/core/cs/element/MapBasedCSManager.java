@@ -0,0 +1,170 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.core.cs.element;
+
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.TwoKeyMap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link CSManager} which finds context-sensitive elements in hash maps.
+ */
+public class MapBasedCSManager implements CSManager {
+
+    private final TwoKeyMap<Var, Context, CSVar> vars = Maps.newTwoKeyMap();
+
+    private final TwoKeyMap<Obj, Context, CSObj> objs = Maps.newTwoKeyMap();
+
+    /**
+     * Context-sensitive objects, indexed by {@link CSObj#getIndex()}.
+     */
+    private final List<CSObj> objList = new ArrayList<>();
+
+    private final TwoKeyMap<Invoke, Context, CSCallSite> callSites = Maps.newTwoKeyMap();
+
+    private final TwoKeyMap<JMethod, Context, CSMethod> methods = Maps.newTwoKeyMap();
+
+    private final Map<JField, StaticField> staticFields = Maps.newMap();
+
+    private final TwoKeyMap<CSObj, JField, InstanceField> instanceFields = Maps.newTwoKeyMap();
+
+    private final Map<CSObj, ArrayIndex> arrayIndexes = Maps.newMap();
+
+    private final PointsToSetFactory ptsFactory;
+
+    /**
+     * @param ptsKind kind of the points-to sets of the pointers,
+     *                see {@link PointsToSetFactory#PointsToSetFactory(String, CSManager)}.
+     */
+    public MapBasedCSManager(String ptsKind) {
+        ptsFactory = new PointsToSetFactory(ptsKind, this);
+    }
+
+    @Override
+    public CSVar getCSVar(Context context, Var var) {
+        return vars.computeIfAbsent(var, context,
+                (v, c) -> initializePointsToSet(new CSVar(v, c)));
+    }
+
+    @Override
+    public CSObj getCSObj(Context heapContext, Obj obj) {
+        return objs.computeIfAbsent(obj, heapContext, (o, c) -> {
+            CSObj csObj = new CSObj(o, c, objList.size());
+            objList.add(csObj);
+            return csObj;
+        });
+    }
+
+    @Override
+    public CSCallSite getCSCallSite(Context context, Invoke callSite) {
+        return callSites.computeIfAbsent(callSite, context, CSCallSite::new);
+    }
+
+    @Override
+    public CSMethod getCSMethod(Context context, JMethod method) {
+        return methods.computeIfAbsent(method, context, CSMethod::new);
+    }
+
+    @Override
+    public StaticField getStaticField(JField field) {
+        return staticFields.computeIfAbsent(field,
+                f -> initializePointsToSet(new StaticField(f)));
+    }
+
+    @Override
+    public InstanceField getInstanceField(CSObj base, JField field) {
+        return instanceFields.computeIfAbsent(base, field,
+                (o, f) -> initializePointsToSet(new InstanceField(o, f)));
+    }
+
+    @Override
+    public ArrayIndex getArrayIndex(CSObj array) {
+        return arrayIndexes.computeIfAbsent(array,
+                a -> initializePointsToSet(new ArrayIndex(a)));
+    }
+
+    @Override
+    public Collection<Var> getVars() {
+        return vars.keySet();
+    }
+
+    @Override
+    public Collection<CSVar> getCSVars() {
+        return vars.values();
+    }
+
+    @Override
+    public Collection<CSVar> getCSVarsOf(Var var) {
+        Map<Context, CSVar> csVars = vars.get(var);
+        return csVars != null ? csVars.values() : Set.of();
+    }
+
+    @Override
+    public Collection<CSObj> getObjects() {
+        return Collections.unmodifiableList(objList);
+    }
+
+    @Override
+    public CSObj getObject(int index) {
+        return objList.get(index);
+    }
+
+    @Override
+    public PointsToSetFactory getPointsToSetFactory() {
+        return ptsFactory;
+    }
+
+    @Override
+    public Collection<StaticField> getStaticFields() {
+        return Collections.unmodifiableCollection(staticFields.values());
+    }
+
+    @Override
+    public Collection<InstanceField> getInstanceFields() {
+        return instanceFields.values();
+    }
+
+    @Override
+    public Collection<ArrayIndex> getArrayIndexes() {
+        return Collections.unmodifiableCollection(arrayIndexes.values());
+    }
+
+    private <P extends Pointer> P initializePointsToSet(P pointer) {
+        pointer.setPointsToSet(ptsFactory.make());
+        return pointer;
+    }
+}
@@ -23,7 +23,7 @@
 package pascal.taie.analysis.pta.core.cs.selector;
 
 import pascal.taie.analysis.pta.core.cs.context.Context;
-import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
 import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
@@ -35,9 +35,23 @@ import pascal.taie.language.classes.JMethod;
  */
 public class CISelector implements ContextSelector {
 
+    private final TrieContext.Factory factory;
+
+    public CISelector() {
+        this(new TrieContext.Factory());
+    }
+
+    /**
+     * @param factory the factory of the contexts selected by this selector,
+     *                which can be shared with other selectors.
+     */
+    public CISelector(TrieContext.Factory factory) {
+        this.factory = factory;
+    }
+
     @Override
     public Context getEmptyContext() {
-        return ListContext.make();
+        return factory.getEmptyContext();
     }
 
     @Override
@@ -0,0 +1,111 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.selector;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Sets;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Context selector which selects contexts by a delegate selector until
+ * it is degraded, e.g., when the pointer analysis exceeds its budget.
+ * After that, it selects the empty context for callees and heap objects,
+ * i.e., methods reached afterwards are analyzed context-insensitively and
+ * heap contexts are merged, which bounds the growth of contexts while
+ * keeping the analysis sound.
+ */
+public class DegradableSelector implements ContextSelector {
+
+    private static final Logger logger = LogManager.getLogger(DegradableSelector.class);
+
+    private final ContextSelector delegate;
+
+    private boolean degraded = false;
+
+    /**
+     * Methods which are given the empty context due to degradation.
+     */
+    private final Set<JMethod> degradedMethods = Sets.newSet();
+
+    public DegradableSelector(ContextSelector delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Switches this selector to the empty context.
+     */
+    public void degrade() {
+        degraded = true;
+    }
+
+    public boolean isDegraded() {
+        return degraded;
+    }
+
+    /**
+     * @return the methods which are given the empty context
+     * due to degradation.
+     */
+    public Set<JMethod> getDegradedMethods() {
+        return Collections.unmodifiableSet(degradedMethods);
+    }
+
+    @Override
+    public Context getEmptyContext() {
+        return delegate.getEmptyContext();
+    }
+
+    @Override
+    public Context selectContext(CSCallSite callSite, JMethod callee) {
+        return degraded ? degrade(callee) :
+                delegate.selectContext(callSite, callee);
+    }
+
+    @Override
+    public Context selectContext(CSCallSite callSite, CSObj recv, JMethod callee) {
+        return degraded ? degrade(callee) :
+                delegate.selectContext(callSite, recv, callee);
+    }
+
+    @Override
+    public Context selectHeapContext(CSMethod method, Obj obj) {
+        return degraded ? getEmptyContext() :
+                delegate.selectHeapContext(method, obj);
+    }
+
+    private Context degrade(JMethod method) {
+        if (degradedMethods.add(method)) {
+            logger.info("Degraded to context insensitivity: {}", method);
+        }
+        return getEmptyContext();
+    }
+}
@@ -23,7 +23,7 @@
 package pascal.taie.analysis.pta.core.cs.selector;
 
 import pascal.taie.analysis.pta.core.cs.context.Context;
-import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
 import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
@@ -35,21 +35,35 @@ import pascal.taie.language.classes.JMethod;
  */
 public class _1CallSelector implements ContextSelector {
 
+    private final TrieContext.Factory factory;
+
+    public _1CallSelector() {
+        this(new TrieContext.Factory());
+    }
+
+    /**
+     * @param factory the factory of the contexts selected by this selector,
+     *                which can be shared with other selectors.
+     */
+    public _1CallSelector(TrieContext.Factory factory) {
+        this.factory = factory;
+    }
+
     @Override
     public Context getEmptyContext() {
-        return ListContext.make();
+        return factory.getEmptyContext();
     }
 
     @Override
     public Context selectContext(CSCallSite callSite, JMethod callee) {
         // TODO - finish me
-        return ListContext.make(callSite.getCallSite());
+        return factory.append(callSite.getContext(), callSite.getCallSite(), 1);
     }
 
     @Override
     public Context selectContext(CSCallSite callSite, CSObj recv, JMethod callee) {
         // TODO - finish me
-        return ListContext.make(callSite.getCallSite());
+        return factory.append(callSite.getContext(), callSite.getCallSite(), 1);
     }
 
     @Override
@@ -23,7 +23,7 @@
 package pascal.taie.analysis.pta.core.cs.selector;
 
 import pascal.taie.analysis.pta.core.cs.context.Context;
-import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
 import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
@@ -36,40 +36,40 @@ import pascal.taie.language.classes.JMethod;
  */
 public class _2CallSelector implements ContextSelector {
 
+    private final TrieContext.Factory factory;
+
+    public _2CallSelector() {
+        this(new TrieContext.Factory());
+    }
+
+    /**
+     * @param factory the factory of the contexts selected by this selector,
+     *                which can be shared with other selectors.
+     */
+    public _2CallSelector(TrieContext.Factory factory) {
+        this.factory = factory;
+    }
+
     @Override
     public Context getEmptyContext() {
-        return ListContext.make();
+        return factory.getEmptyContext();
     }
 
     @Override
     public Context selectContext(CSCallSite callSite, JMethod callee) {
         // TODO - finish me
-        Context context = callSite.getContext();
-        switch (context.getLength()) {
-            case 0: return ListContext.make(callSite.getCallSite());
-            case 1: return ListContext.make(context.getElementAt(0), callSite.getCallSite());
-            default: return ListContext.make(context.getElementAt(1), callSite.getCallSite());
-        }
+        return factory.append(callSite.getContext(), callSite.getCallSite(), 2);
     }
 
     @Override
     public Context selectContext(CSCallSite callSite, CSObj recv, JMethod callee) {
         // TODO - finish me
-        Context context = callSite.getContext();
-        switch (context.getLength()) {
-            case 0: return ListContext.make(callSite.getCallSite());
-            case 1: return ListContext.make(context.getElementAt(0), callSite.getCallSite());
-            default: return ListContext.make(context.getElementAt(1), callSite.getCallSite());
-        }
+        return factory.append(callSite.getContext(), callSite.getCallSite(), 2);
     }
 
     @Override
     public Context selectHeapContext(CSMethod method, Obj obj) {
         // TODO - finish me
-        Context context = method.getContext();
-        switch (context.getLength()) {
-            case 0: return getEmptyContext();
-            default: return ListContext.make(context.getElementAt(context.getLength()-1));
-        }
+        return factory.truncate(method.getContext(), 1);
     }
 }
@@ -23,7 +23,7 @@
 package pascal.taie.analysis.pta.core.cs.selector;
 
 import pascal.taie.analysis.pta.core.cs.context.Context;
-import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
 import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
@@ -35,9 +35,23 @@ import pascal.taie.language.classes.JMethod;
  */
 public class _2ObjSelector implements ContextSelector {
 
+    private final TrieContext.Factory factory;
+
+    public _2ObjSelector() {
+        this(new TrieContext.Factory());
+    }
+
+    /**
+     * @param factory the factory of the contexts selected by this selector,
+     *                which can be shared with other selectors.
+     */
+    public _2ObjSelector(TrieContext.Factory factory) {
+        this.factory = factory;
+    }
+
     @Override
     public Context getEmptyContext() {
-        return ListContext.make();
+        return factory.getEmptyContext();
     }
 
     @Override
@@ -49,21 +63,12 @@ public class _2ObjSelector implements ContextSelector {
     @Override
     public Context selectContext(CSCallSite callSite, CSObj recv, JMethod callee) {
         // TODO - finish me
-        Context context = recv.getContext();
-        switch (context.getLength()) {
-            case 0: return ListContext.make(recv.getObject());
-            case 1: return ListContext.make(context.getElementAt(0), recv.getObject());
-            default: return ListContext.make(context.getElementAt(1), recv.getObject());
-        }
+        return factory.append(recv.getContext(), recv.getObject(), 2);
     }
 
     @Override
     public Context selectHeapContext(CSMethod method, Obj obj) {
         // TODO - finish me
-        Context context = method.getContext();
-        switch (context.getLength()) {
-            case 0: return getEmptyContext();
-            default: return ListContext.make(context.getElementAt(context.getLength()-1));
-        }
+        return factory.truncate(method.getContext(), 1);
     }
 }
@@ -0,0 +1,80 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.heap;
+
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.ConfigException;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.collection.Maps;
+
+import java.util.Map;
+
+/**
+ * Heap model which models objects by their allocation sites, until a type
+ * has more than N allocation sites (N is given by option type-cap).
+ * The objects of the further allocation sites of the type are merged
+ * into one object per type.
+ * <p>
+ * The allocation sites are counted as they are analyzed (i.e., only
+ * sites in reachable methods count), and each site keeps the object
+ * it is given at its first query, so the model is consistent during
+ * the analysis.
+ */
+public class TypeCappedModel extends AbstractHeapModel {
+
+    private final int cap;
+
+    /**
+     * Number of distinguished allocation sites of each type.
+     */
+    private final Map<Type, Integer> sites = Maps.newMap();
+
+    /**
+     * Object of each queried allocation site.
+     */
+    private final Map<New, Obj> objs = Maps.newMap();
+
+    public TypeCappedModel(AnalysisOptions options) {
+        super(options);
+        Object cap = options.get("type-cap");
+        if (!(cap instanceof Number n) || n.intValue() < 0) {
+            throw new ConfigException("Invalid type-cap: " + cap);
+        }
+        this.cap = n.intValue();
+    }
+
+    @Override
+    protected Obj doGetObj(New allocSite) {
+        return objs.computeIfAbsent(allocSite, site -> {
+            Type type = site.getRValue().getType();
+            int n = sites.getOrDefault(type, 0);
+            if (n < cap) {
+                sites.put(type, n + 1);
+                return getNewObj(site);
+            } else {
+                return getMergedObj(site);
+            }
+        });
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.heap;
+
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.ConfigException;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.collection.Maps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Heap model which merges all objects of the types matching option
+ * merge-types into one object per type, and models the other objects
+ * by their allocation sites.
+ * <p>
+ * Each pattern is either a class name, e.g., "java.util.HashMap",
+ * or a prefix of class names ending with "*", e.g., "java.util.*".
+ * The patterns are given as a list or as a comma-separated string.
+ */
+public class TypeMergingModel extends AbstractHeapModel {
+
+    private final List<String> patterns;
+
+    /**
+     * Cache of whether the objects of each type are merged.
+     */
+    private final Map<Type, Boolean> merged = Maps.newMap();
+
+    public TypeMergingModel(AnalysisOptions options) {
+        super(options);
+        patterns = parsePatterns(options.get("merge-types"));
+    }
+
+    private static List<String> parsePatterns(Object patterns) {
+        if (patterns == null) {
+            return List.of();
+        } else if (patterns instanceof Collection<?> c) {
+            return c.stream().map(Object::toString).map(String::strip).toList();
+        } else if (patterns instanceof String s) {
+            return Arrays.stream(s.split(","))
+                    .map(String::strip)
+                    .filter(p -> !p.isEmpty())
+                    .toList();
+        } else {
+            throw new ConfigException("Invalid merge-types: " + patterns);
+        }
+    }
+
+    @Override
+    protected Obj doGetObj(New allocSite) {
+        Type type = allocSite.getRValue().getType();
+        return merged.computeIfAbsent(type, this::matches) ?
+                getMergedObj(allocSite) : getNewObj(allocSite);
+    }
+
+    private boolean matches(Type type) {
+        String name = type.getName();
+        for (String pattern : patterns) {
+            if (pattern.endsWith("*") ?
+                    name.startsWith(pattern.substring(0, pattern.length() - 1)) :
+                    name.equals(pattern)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import pascal.taie.config.AnalysisOptions;
+
+/**
+ * Budget of pointer analysis, consisting of the wall-clock time,
+ * the fraction of the maximum heap in use, and the number of
+ * context-sensitive methods. Each part is unlimited if its option is absent.
+ */
+class AnalysisBudget {
+
+    private final long startTime = System.nanoTime();
+
+    /**
+     * Time limit in nanoseconds, or -1 if unlimited.
+     */
+    private final long timeLimit;
+
+    /**
+     * Limit of used heap as a fraction of maximum heap, or -1 if unlimited.
+     */
+    private final double heapLimit;
+
+    /**
+     * Limit of the number of context-sensitive methods, or -1 if unlimited.
+     */
+    private final long contextLimit;
+
+    /**
+     * @param options options with "time-budget" (in seconds),
+     *                "heap-budget" (a fraction in (0, 1]), and
+     *                "context-budget" (number of context-sensitive methods).
+     */
+    AnalysisBudget(AnalysisOptions options) {
+        Number time = (Number) options.get("time-budget");
+        Number heap = (Number) options.get("heap-budget");
+        Number contexts = (Number) options.get("context-budget");
+        timeLimit = time != null ? (long) (time.doubleValue() * 1_000_000_000) : -1;
+        heapLimit = heap != null ? heap.doubleValue() : -1;
+        contextLimit = contexts != null ? contexts.longValue() : -1;
+    }
+
+    boolean isUnlimited() {
+        return timeLimit < 0 && heapLimit < 0 && contextLimit < 0;
+    }
+
+    /**
+     * @param csMethods current number of context-sensitive methods.
+     * @return the description of the exceeded part of this budget,
+     * or null if the budget is not exceeded.
+     */
+    String check(long csMethods) {
+        if (timeLimit >= 0) {
+            long elapsed = System.nanoTime() - startTime;
+            if (elapsed > timeLimit) {
+                return String.format("time %.1fs > %.1fs",
+                        elapsed / 1e9, timeLimit / 1e9);
+            }
+        }
+        if (heapLimit >= 0) {
+            Runtime runtime = Runtime.getRuntime();
+            double used = (double) (runtime.totalMemory() - runtime.freeMemory())
+                    / runtime.maxMemory();
+            if (used > heapLimit) {
+                return String.format("heap %.2f > %.2f", used, heapLimit);
+            }
+        }
+        if (contextLimit >= 0 && csMethods > contextLimit) {
+            return String.format("context-sensitive methods %d > %d",
+                    csMethods, contextLimit);
+        }
+        return null;
+    }
+}
@@ -22,19 +22,33 @@
 
 package pascal.taie.analysis.pta.cs;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import pascal.taie.analysis.ProgramAnalysis;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
 import pascal.taie.analysis.pta.core.cs.selector.CISelector;
 import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
+import pascal.taie.analysis.pta.core.cs.selector.GuidedSelector;
+import pascal.taie.analysis.pta.core.cs.selector.SelectiveSelector;
 import pascal.taie.analysis.pta.core.heap.AllocationSiteBasedModel;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.analysis.pta.core.heap.TypeCappedModel;
+import pascal.taie.analysis.pta.core.heap.TypeMergingModel;
 import pascal.taie.analysis.pta.plugin.ResultProcessor;
+import pascal.taie.analysis.pta.toolkit.scaler.Scaler;
+import pascal.taie.analysis.pta.toolkit.zipper.Zipper;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.config.AnalysisOptions;
 import pascal.taie.config.ConfigException;
+import pascal.taie.language.classes.JMethod;
 import pascal.taie.util.Strings;
+import pascal.taie.util.collection.Maps;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Context-sensitive pointer analysis.
@@ -43,6 +57,8 @@ public class CSPTA extends ProgramAnalysis {
 
     public static final String ID = "cspta";
 
+    private static final Logger logger = LogManager.getLogger(CSPTA.class);
+
     public CSPTA(AnalysisConfig config) {
         super(config);
     }
@@ -50,18 +66,89 @@ public class CSPTA extends ProgramAnalysis {
     @Override
     public PointerAnalysisResult analyze() {
         AnalysisOptions options = getOptions();
+        ContextSelector selector = makeContextSelector(options);
         Solver solver = new Solver(options,
-                new AllocationSiteBasedModel(options),
-                getContextSelector(options.getString("cs")));
+                makeHeapModel(options), selector);
         solver.solve();
+        solver.getMetrics().finish(options.getString("metrics-file"));
         PointerAnalysisResult result = solver.getResult();
         ResultProcessor.process(options, result);
         return result;
     }
 
-    private static ContextSelector getContextSelector(String cs) {
+    /**
+     * @return the heap model given by option heap-model, i.e.,
+     * "allocation-site" for {@link AllocationSiteBasedModel},
+     * "type-merging" for {@link TypeMergingModel}, or
+     * "type-capped" for {@link TypeCappedModel}.
+     */
+    private static HeapModel makeHeapModel(AnalysisOptions options) {
+        String kind = options.getString("heap-model");
+        if (kind == null) {
+            return new AllocationSiteBasedModel(options);
+        }
+        return switch (kind) {
+            case "allocation-site" -> new AllocationSiteBasedModel(options);
+            case "type-merging" -> new TypeMergingModel(options);
+            case "type-capped" -> new TypeCappedModel(options);
+            default -> throw new ConfigException("Unknown heap model: " + kind);
+        };
+    }
+
+    private static ContextSelector makeContextSelector(AnalysisOptions options) {
+        String cs = options.getString("cs");
+        boolean scaler = cs.equals("scaler");
+        boolean zipper = options.getBooleanOrDefault("zipper", false);
+        PointerAnalysisResult preResult = scaler || zipper ?
+                runPreAnalysis(options) : null;
+        ContextSelector selector = scaler ?
+                makeScalerSelector(options, preResult) :
+                getContextSelector(cs, new TrieContext.Factory());
+        if (zipper) {
+            // apply context sensitivity only to precision-critical methods
+            Set<JMethod> pcms = new Zipper(preResult)
+                    .selectPrecisionCriticalMethods();
+            selector = new SelectiveSelector(selector, pcms);
+        }
+        return selector;
+    }
+
+    /**
+     * Runs a context-insensitive pre-analysis with given options.
+     */
+    private static PointerAnalysisResult runPreAnalysis(AnalysisOptions options) {
+        logger.info("Running context-insensitive pre-analysis");
+        Solver solver = new Solver(options,
+                makeHeapModel(options), new CISelector());
+        solver.solve();
+        return solver.getResult();
+    }
+
+    /**
+     * Selects context sensitivity variant for each method by Scaler
+     * on the result of the pre-analysis. The total number of contexts
+     * is bounded by option scaler-tst (if given).
+     */
+    private static ContextSelector makeScalerSelector(
+            AnalysisOptions options, PointerAnalysisResult preResult) {
+        Object tst = options.get("scaler-tst");
+        Scaler scaler = tst == null ? new Scaler(preResult)
+                : new Scaler(preResult, ((Number) tst).longValue());
+        // all selectors share one trie so that contexts selected
+        // by different variants are still canonical
+        TrieContext.Factory factory = new TrieContext.Factory();
+        Map<String, ContextSelector> variants = Maps.newMap();
+        Map<JMethod, ContextSelector> selectors = Maps.newMap();
+        scaler.selectContext().forEach((method, variant) ->
+                selectors.put(method, variants.computeIfAbsent(variant,
+                        v -> getContextSelector(v, factory))));
+        return new GuidedSelector(selectors, new CISelector(factory));
+    }
+
+    private static ContextSelector getContextSelector(
+            String cs, TrieContext.Factory factory) {
         if (cs.equals("ci")) {
-            return new CISelector();
+            return new CISelector(factory);
         } else {
             try {
                 // we expect that the argument of context-sensitivity variant
@@ -73,8 +160,8 @@ public class CSPTA extends ProgramAnalysis {
                 String selectorName = "pascal.taie.analysis.pta.core.cs.selector." +
                         "_" + k + kind + "Selector";
                 Class<?> c = Class.forName(selectorName);
-                Constructor<?> ctor = c.getConstructor();
-                return (ContextSelector) ctor.newInstance();
+                Constructor<?> ctor = c.getConstructor(TrieContext.Factory.class);
+                return (ContextSelector) ctor.newInstance(factory);
             } catch (RuntimeException e) {
                 throw new ConfigException("Unexpected context-sensitivity variants: " + cs, e);
             } catch (ClassNotFoundException | NoSuchMethodException |
@@ -0,0 +1,211 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.cs;
+
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.type.ReferenceType;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Offline pointer equivalence of the variables in a method, computed by
+ * hash-based value numbering (HVN) on the copy/allocation constraints.
+ * <p>
+ * A variable which is only defined by copies and allocations points to
+ * exactly the union of the objects of its sources, thus the variables
+ * with the same sources (up to equivalence) have identical points-to sets.
+ * Variables which receive objects in other ways (parameters, "this",
+ * results of calls, loads, etc.) are given unique value numbers.
+ */
+class PointerEquivalence {
+
+    private final MultiMap<Var, Var> copySources = Maps.newMultiMap();
+
+    private final MultiMap<Var, New> allocSites = Maps.newMultiMap();
+
+    private final Set<Var> indirectVars = Sets.newSet();
+
+    /**
+     * Value numbers of nodes (variables and allocation sites).
+     */
+    private final Map<Object, Integer> valueNumbers = Maps.newMap();
+
+    /**
+     * Value numbers of label sets, for hash-consing.
+     */
+    private final Map<Set<Integer>, Integer> labelNumbers = Maps.newMap();
+
+    private int nextNumber = 0;
+
+    private PointerEquivalence(IR ir) {
+        if (ir.getThis() != null) {
+            indirectVars.add(ir.getThis());
+        }
+        indirectVars.addAll(ir.getParams());
+        for (Stmt stmt : ir) {
+            stmt.getDef().ifPresent(def -> {
+                if (def instanceof Var var
+                        && var.getType() instanceof ReferenceType) {
+                    if (stmt instanceof Copy copy) {
+                        copySources.put(var, copy.getRValue());
+                    } else if (stmt instanceof New newStmt) {
+                        allocSites.put(var, newStmt);
+                    } else {
+                        indirectVars.add(var);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * @return the classes (of size greater than one) of pointer-equivalent
+     * variables in the given IR.
+     */
+    static List<List<Var>> compute(IR ir) {
+        PointerEquivalence pe = new PointerEquivalence(ir);
+        Set<Var> vars = Sets.newSet();
+        vars.addAll(pe.copySources.keySet());
+        vars.addAll(pe.allocSites.keySet());
+        vars.forEach(pe::number);
+        Map<Integer, List<Var>> classes = Maps.newMap();
+        pe.valueNumbers.forEach((node, number) -> {
+            if (node instanceof Var var) { // skip allocation sites
+                classes.computeIfAbsent(number, n -> new ArrayList<>()).add(var);
+            }
+        });
+        return classes.values()
+                .stream()
+                .filter(c -> c.size() > 1)
+                .toList();
+    }
+
+    /**
+     * Numbers the given variable and its (transitive) copy sources.
+     * Strongly connected copy sources are found by Tarjan's algorithm
+     * and share one value number.
+     */
+    private void number(Var root) {
+        if (valueNumbers.containsKey(root)) {
+            return;
+        }
+        Map<Var, Integer> indexes = Maps.newMap();
+        Map<Var, Integer> lowLinks = Maps.newMap();
+        Deque<Var> stack = new ArrayDeque<>();
+        Set<Var> onStack = Sets.newSet();
+        Deque<Var> nodes = new ArrayDeque<>();
+        Deque<Iterator<Var>> sourceIters = new ArrayDeque<>();
+        visit(root, indexes, lowLinks, stack, onStack, nodes, sourceIters);
+        while (!nodes.isEmpty()) {
+            Var node = nodes.peek();
+            Iterator<Var> iter = sourceIters.peek();
+            if (iter.hasNext()) {
+                Var source = iter.next();
+                if (valueNumbers.containsKey(source)) {
+                    continue;
+                }
+                if (!indexes.containsKey(source)) {
+                    visit(source, indexes, lowLinks, stack, onStack, nodes, sourceIters);
+                } else if (onStack.contains(source)) {
+                    lowLinks.put(node, Math.min(lowLinks.get(node), indexes.get(source)));
+                }
+            } else {
+                nodes.pop();
+                sourceIters.pop();
+                int lowLink = lowLinks.get(node);
+                if (lowLink == indexes.get(node)) {
+                    List<Var> scc = new ArrayList<>();
+                    Var v;
+                    do {
+                        v = stack.pop();
+                        onStack.remove(v);
+                        scc.add(v);
+                    } while (v != node);
+                    int number = numberComponent(scc);
+                    scc.forEach(var -> valueNumbers.put(var, number));
+                } else {
+                    Var parent = nodes.peek();
+                    lowLinks.put(parent, Math.min(lowLinks.get(parent), lowLink));
+                }
+            }
+        }
+    }
+
+    private void visit(Var var, Map<Var, Integer> indexes,
+                       Map<Var, Integer> lowLinks, Deque<Var> stack,
+                       Set<Var> onStack, Deque<Var> nodes,
+                       Deque<Iterator<Var>> sourceIters) {
+        int index = indexes.size();
+        indexes.put(var, index);
+        lowLinks.put(var, index);
+        stack.push(var);
+        onStack.add(var);
+        nodes.push(var);
+        sourceIters.push(copySources.get(var).iterator());
+    }
+
+    /**
+     * @return the value number of a strongly connected component of
+     * variables, whose sources outside the component are all numbered.
+     */
+    private int numberComponent(List<Var> scc) {
+        Set<Integer> labels = Sets.newSet();
+        for (Var var : scc) {
+            if (indirectVars.contains(var)) {
+                return nextNumber++;
+            }
+            for (Var source : copySources.get(var)) {
+                Integer number = valueNumbers.get(source);
+                if (number != null) { // sources in scc are not numbered yet
+                    labels.add(number);
+                }
+            }
+            for (New allocSite : allocSites.get(var)) {
+                labels.add(valueNumbers.computeIfAbsent(allocSite, s -> nextNumber++));
+            }
+        }
+        if (labels.isEmpty()) {
+            // the variables never point to any objects in this method,
+            // which is not worth merging
+            return nextNumber++;
+        }
+        if (labels.size() == 1) {
+            return labels.iterator().next();
+        }
+        return labelNumbers.computeIfAbsent(labels, l -> nextNumber++);
+    }
+}
@@ -23,13 +23,31 @@
 package pascal.taie.analysis.pta.cs;
 
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
  * Represents pointer flow graph in context-sensitive pointer analysis.
+ * <p>
+ * Pointers which always have the same points-to set, e.g., the pointers
+ * in a cycle of the PFG, can be merged into one representative pointer,
+ * which shares its points-to set with the other merged pointers.
+ * Edges are always added between representatives, but edges added before
+ * a merge may still point to non-representatives, so the users of
+ * {@link #getSuccsOf(Pointer)} should map successors via
+ * {@link #getRepresentative(Pointer)}.
  */
 class PointerFlowGraph {
 
@@ -38,6 +56,16 @@ class PointerFlowGraph {
      */
     private final MultiMap<Pointer, Pointer> successors = Maps.newMultiMap();
 
+    /**
+     * Map from a merged pointer to the pointer it is merged into.
+     */
+    private final Map<Pointer, Pointer> parents = Maps.newMap();
+
+    /**
+     * Map from a representative to the other pointers merged into it.
+     */
+    private final MultiMap<Pointer, Pointer> members = Maps.newMultiMap();
+
     /**
      * Adds an edge (source -> target) to this PFG.
      *
@@ -54,4 +82,148 @@ class PointerFlowGraph {
     Set<Pointer> getSuccsOf(Pointer pointer) {
         return successors.get(pointer);
     }
+
+    /**
+     * @return the representative which the given pointer is merged into,
+     * or the pointer itself if it is not merged.
+     */
+    Pointer getRepresentative(Pointer pointer) {
+        Pointer rep = pointer;
+        Pointer parent;
+        while ((parent = parents.get(rep)) != null) {
+            rep = parent;
+        }
+        if (rep != pointer) {
+            // path compression
+            Pointer p = pointer;
+            while ((parent = parents.get(p)) != rep) {
+                parents.put(p, rep);
+                p = parent;
+            }
+        }
+        return rep;
+    }
+
+    /**
+     * @return the given representative and all pointers merged into it.
+     */
+    Collection<Pointer> getMembers(Pointer rep) {
+        Set<Pointer> merged = members.get(rep);
+        if (merged.isEmpty()) {
+            return List.of(rep);
+        }
+        List<Pointer> result = new ArrayList<>(merged.size() + 1);
+        result.add(rep);
+        result.addAll(merged);
+        return result;
+    }
+
+    /**
+     * Finds the strongly connected component containing the given
+     * representative, by Tarjan's algorithm.
+     *
+     * @return the representatives in the component.
+     */
+    Set<Pointer> findCycle(Pointer rep) {
+        List<Set<Pointer>> sccs = new ArrayList<>();
+        strongConnect(rep, Maps.newMap(), Maps.newMap(), sccs);
+        // the component of the root is the last one to be completed
+        return sccs.get(sccs.size() - 1);
+    }
+
+    /**
+     * @return the strongly connected components of this PFG
+     * (over representatives) in topological order, i.e., for every edge
+     * "s -> t" between two components, the component of s comes first.
+     */
+    List<Set<Pointer>> getSCCs() {
+        Map<Pointer, Integer> indexes = Maps.newMap();
+        Map<Pointer, Integer> lowLinks = Maps.newMap();
+        List<Set<Pointer>> sccs = new ArrayList<>();
+        for (Pointer pointer : List.copyOf(successors.keySet())) {
+            if (!indexes.containsKey(pointer)) {
+                strongConnect(pointer, indexes, lowLinks, sccs);
+            }
+        }
+        // Tarjan's algorithm completes components in reverse topological order
+        Collections.reverse(sccs);
+        return sccs;
+    }
+
+    /**
+     * Iterative Tarjan's algorithm from {@code root}. Pointers visited
+     * before (i.e., in {@code indexes}) are not traversed again.
+     * Completed components are appended to {@code sccs}.
+     */
+    private void strongConnect(Pointer root,
+                               Map<Pointer, Integer> indexes,
+                               Map<Pointer, Integer> lowLinks,
+                               List<Set<Pointer>> sccs) {
+        Deque<Pointer> stack = new ArrayDeque<>();
+        Set<Pointer> onStack = Sets.newSet();
+        Deque<Pointer> nodes = new ArrayDeque<>();
+        Deque<Iterator<Pointer>> succIters = new ArrayDeque<>();
+        int rootIndex = indexes.size();
+        indexes.put(root, rootIndex);
+        lowLinks.put(root, rootIndex);
+        stack.push(root);
+        onStack.add(root);
+        nodes.push(root);
+        succIters.push(getSuccsOf(root).iterator());
+        while (!nodes.isEmpty()) {
+            Pointer node = nodes.peek();
+            Iterator<Pointer> iter = succIters.peek();
+            if (iter.hasNext()) {
+                Pointer succ = getRepresentative(iter.next());
+                if (!indexes.containsKey(succ)) {
+                    int index = indexes.size();
+                    indexes.put(succ, index);
+                    lowLinks.put(succ, index);
+                    stack.push(succ);
+                    onStack.add(succ);
+                    nodes.push(succ);
+                    succIters.push(getSuccsOf(succ).iterator());
+                } else if (onStack.contains(succ)) {
+                    lowLinks.put(node, Math.min(lowLinks.get(node), indexes.get(succ)));
+                }
+            } else {
+                nodes.pop();
+                succIters.pop();
+                int lowLink = lowLinks.get(node);
+                if (lowLink == indexes.get(node)) {
+                    Set<Pointer> scc = Sets.newSet();
+                    Pointer p;
+                    do {
+                        p = stack.pop();
+                        onStack.remove(p);
+                        scc.add(p);
+                    } while (p != node);
+                    sccs.add(scc);
+                } else {
+                    Pointer parent = nodes.peek();
+                    lowLinks.put(parent, Math.min(lowLinks.get(parent), lowLink));
+                }
+            }
+        }
+    }
+
+    /**
+     * Merges the given representatives (e.g., of a cycle) into {@code rep}.
+     * All pointers represented by them will share points-to set {@code pts}.
+     */
+    void merge(Collection<Pointer> reps, Pointer rep, PointsToSet pts) {
+        for (Pointer p : reps) {
+            for (Pointer member : getMembers(p)) {
+                member.setPointsToSet(pts);
+            }
+            if (p != rep) {
+                parents.put(p, rep);
+                members.put(rep, p);
+                members.putAll(rep, members.get(p));
+                members.removeAll(p);
+                successors.putAll(rep, successors.get(p));
+                successors.removeAll(p);
+            }
+        }
+    }
 }
@@ -0,0 +1,135 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.util.collection.Maps;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Work list which processes pointers in the (approximate) topological
+ * order of the pointer flow graph, so that a pointer is usually processed
+ * after its predecessors have settled, and the points-to sets propagated
+ * to it in the meantime are processed together.
+ * <p>
+ * The entries of the same pointer are merged into one entry.
+ * The topological ranks of the pointers are recomputed when the PFG may
+ * have changed considerably, i.e., after as many polls as the number of
+ * ranked pointers. The pointers which are not ranked yet (e.g., of
+ * methods which became reachable after the last ranking) are ranked
+ * after all ranked pointers, in the order they are added.
+ */
+class PriorityWorkList implements WorkList {
+
+    /**
+     * Minimum number of polls between two rankings.
+     */
+    private static final int RERANK_INTERVAL = 1024;
+
+    private final PointerFlowGraph pointerFlowGraph;
+
+    private final PointsToSetFactory ptsFactory;
+
+    /**
+     * Topological ranks of the pointers.
+     */
+    private Map<Pointer, Integer> ranks = Maps.newMap();
+
+    private int nextRank;
+
+    private int pollsSinceRanking;
+
+    /**
+     * Pending points-to sets of the pointers in the queue.
+     */
+    private final Map<Pointer, PointsToSet> pending = Maps.newMap();
+
+    private PriorityQueue<Pointer> queue = newQueue();
+
+    PriorityWorkList(PointerFlowGraph pointerFlowGraph,
+                     PointsToSetFactory ptsFactory) {
+        this.pointerFlowGraph = pointerFlowGraph;
+        this.ptsFactory = ptsFactory;
+    }
+
+    @Override
+    public void addEntry(Pointer pointer, PointsToSet pointsToSet) {
+        pointer = pointerFlowGraph.getRepresentative(pointer);
+        PointsToSet pts = pending.get(pointer);
+        if (pts == null) {
+            // the given set may be a live points-to set, thus it is copied
+            pts = ptsFactory.make();
+            pending.put(pointer, pts);
+            ranks.computeIfAbsent(pointer, p -> nextRank++);
+            queue.add(pointer);
+        }
+        pts.addAll(pointsToSet);
+    }
+
+    @Override
+    public Entry pollEntry() {
+        if (++pollsSinceRanking >= Math.max(RERANK_INTERVAL, ranks.size())) {
+            rank();
+        }
+        Pointer pointer = queue.poll();
+        return pointer == null ? null
+                : new Entry(pointer, pending.remove(pointer));
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    /**
+     * Recomputes the ranks of the pointers from the current PFG,
+     * and reorders the pending pointers accordingly.
+     */
+    private void rank() {
+        pollsSinceRanking = 0;
+        ranks = Maps.newMap(ranks.size());
+        nextRank = 0;
+        for (Set<Pointer> scc : pointerFlowGraph.getSCCs()) {
+            for (Pointer pointer : scc) {
+                ranks.put(pointer, nextRank);
+            }
+            ++nextRank;
+        }
+        queue = newQueue();
+        for (Pointer pointer : pending.keySet()) {
+            ranks.computeIfAbsent(pointer, p -> nextRank++);
+            queue.add(pointer);
+        }
+    }
+
+    private PriorityQueue<Pointer> newQueue() {
+        return new PriorityQueue<>(
+                Comparator.comparingInt(pointer -> ranks.get(pointer)));
+    }
+}
@@ -29,7 +29,7 @@ import pascal.taie.analysis.graph.callgraph.CallGraphs;
 import pascal.taie.analysis.graph.callgraph.CallKind;
 import pascal.taie.analysis.graph.callgraph.Edge;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
-import pascal.taie.analysis.pta.PointerAnalysisResultImpl;
+import pascal.taie.analysis.pta.SolverMetrics;
 import pascal.taie.analysis.pta.core.cs.CSCallGraph;
 import pascal.taie.analysis.pta.core.cs.context.Context;
 import pascal.taie.analysis.pta.core.cs.element.ArrayIndex;
@@ -39,15 +39,20 @@ import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
 import pascal.taie.analysis.pta.core.cs.element.CSVar;
 import pascal.taie.analysis.pta.core.cs.element.InstanceField;
+import pascal.taie.analysis.pta.core.cs.element.ArrayCSManager;
 import pascal.taie.analysis.pta.core.cs.element.MapBasedCSManager;
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
 import pascal.taie.analysis.pta.core.cs.element.StaticField;
 import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
+import pascal.taie.analysis.pta.core.cs.selector.DegradableSelector;
 import pascal.taie.analysis.pta.core.heap.HeapModel;
 import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.pts.ObjMask;
 import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.analysis.pta.pts.PointsToSetFactory;
 import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.ConfigException;
+import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.InvokeExp;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.stmt.Copy;
@@ -55,38 +60,162 @@ import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.ir.stmt.LoadArray;
 import pascal.taie.ir.stmt.LoadField;
 import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.ir.stmt.StmtVisitor;
 import pascal.taie.ir.stmt.StoreArray;
 import pascal.taie.ir.stmt.StoreField;
 import pascal.taie.language.classes.JField;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.language.type.Type;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 
 class Solver {
 
     private static final Logger logger = LogManager.getLogger(Solver.class);
 
+    /**
+     * Number of work-list pops between two checks of the budget.
+     */
+    private static final int BUDGET_CHECK_INTERVAL = 1024;
+
     private final AnalysisOptions options;
 
     private final HeapModel heapModel;
 
     private final ContextSelector contextSelector;
 
+    /**
+     * Budget of this analysis. When it is exceeded, context sensitivity
+     * is degraded by {@link #degradableSelector}.
+     */
+    private final AnalysisBudget budget;
+
+    /**
+     * The context selector if the budget is limited, otherwise null.
+     */
+    private final DegradableSelector degradableSelector;
+
+    /**
+     * Whether to solve by parallel wave propagation
+     * instead of the sequential work-list loop.
+     */
+    private final boolean parallel;
+
+    /**
+     * Filters objects by the declared types of pointers,
+     * or null if type filtering is disabled.
+     */
+    private TypeFilter typeFilter;
+
     private CSManager csManager;
 
+    private PointsToSetFactory ptsFactory;
+
     private CSCallGraph callGraph;
 
     private PointerFlowGraph pointerFlowGraph;
 
     private WorkList workList;
 
+    /**
+     * PFG edges which have been checked for cycles.
+     */
+    private MultiMap<Pointer, Pointer> checkedEdges;
+
+    /**
+     * Classes of pointer-equivalent variables of each reachable method.
+     */
+    private Map<JMethod, List<List<Var>>> equivalentVarClasses;
+
+    /**
+     * Statistics of merged pointers.
+     */
+    private int equivalentVars;
+
+    private int collapsedCycles;
+
+    private int collapsedPointers;
+
+    private int waves;
+
+    private SolverMetrics metrics;
+
     private PointerAnalysisResult result;
 
     Solver(AnalysisOptions options, HeapModel heapModel,
            ContextSelector contextSelector) {
         this.options = options;
         this.heapModel = heapModel;
-        this.contextSelector = contextSelector;
+        this.budget = new AnalysisBudget(options);
+        if (budget.isUnlimited()) {
+            this.degradableSelector = null;
+            this.contextSelector = contextSelector;
+        } else {
+            this.degradableSelector = new DegradableSelector(contextSelector);
+            this.contextSelector = degradableSelector;
+        }
+        this.parallel = isParallel(options.getString("solver"));
+    }
+
+    /**
+     * @param solver "worklist" for the sequential work-list solver,
+     *               or "wave" for the parallel wave-propagation solver.
+     */
+    private static boolean isParallel(String solver) {
+        if (solver == null) {
+            return false;
+        }
+        return switch (solver) {
+            case "worklist" -> false;
+            case "wave" -> true;
+            default -> throw new ConfigException("Unknown solver: " + solver);
+        };
+    }
+
+    /**
+     * @param kind    "map" for the {@link MapBasedCSManager},
+     *                or "array" for the {@link ArrayCSManager}.
+     * @param ptsKind kind of the points-to sets, see {@link PointsToSetFactory}.
+     */
+    private static CSManager makeCSManager(String kind, String ptsKind) {
+        if (ptsKind == null) {
+            ptsKind = "hybrid";
+        }
+        if (kind == null) {
+            return new MapBasedCSManager(ptsKind);
+        }
+        return switch (kind) {
+            case "map" -> new MapBasedCSManager(ptsKind);
+            case "array" -> new ArrayCSManager(ptsKind);
+            default -> throw new ConfigException("Unknown CS manager: " + kind);
+        };
+    }
+
+    /**
+     * @param kind "fifo" for the {@link FIFOWorkList},
+     *             or "priority" for the {@link PriorityWorkList}.
+     */
+    private WorkList makeWorkList(String kind) {
+        if (kind == null) {
+            return new FIFOWorkList();
+        }
+        return switch (kind) {
+            case "fifo" -> new FIFOWorkList();
+            case "priority" -> new PriorityWorkList(pointerFlowGraph, ptsFactory);
+            default -> throw new ConfigException("Unknown work list: " + kind);
+        };
     }
 
     void solve() {
@@ -95,10 +224,19 @@ class Solver {
     }
 
     private void initialize() {
-        csManager = new MapBasedCSManager();
+        csManager = makeCSManager(options.getString("cs-manager"),
+                options.getString("pts"));
+        ptsFactory = csManager.getPointsToSetFactory();
+        typeFilter = options.getBooleanOrDefault("type-filter", false)
+                ? new TypeFilter(csManager) : null;
         callGraph = new CSCallGraph(csManager);
         pointerFlowGraph = new PointerFlowGraph();
-        workList = new WorkList();
+        metrics = new SolverMetrics(CSPTA.ID);
+        String workListKind = options.getString("work-list");
+        workList = makeWorkList(workListKind);
+        metrics.setWorkList(workListKind != null ? workListKind : "fifo");
+        checkedEdges = Maps.newMultiMap();
+        equivalentVarClasses = Maps.newMap();
         // process program entry, i.e., main method
         Context defContext = contextSelector.getEmptyContext();
         JMethod main = World.get().getMainMethod();
@@ -113,8 +251,33 @@ class Solver {
     private void addReachable(CSMethod csMethod) {
         // TODO - finish me
         if (callGraph.addReachableMethod(csMethod)) {
+            long start = metrics.startMethod();
+            mergeEquivalentVars(csMethod);
             StmtProcessor stmtProcessor = new StmtProcessor(csMethod);
-            csMethod.getMethod().getIR().forEach(stmt -> stmt.accept(stmtProcessor));
+            IR ir = csMethod.getMethod().getIR();
+            ir.forEach(stmt -> stmt.accept(stmtProcessor));
+            metrics.endMethod(csMethod.getMethod(), ir.getStmts().size(), start);
+        }
+    }
+
+    /**
+     * Merges the pointers of pointer-equivalent variables in the given
+     * method (under its context), so that each class of the variables
+     * shares one points-to set. The equivalence classes of each method
+     * are computed once and shared by all its contexts.
+     */
+    private void mergeEquivalentVars(CSMethod csMethod) {
+        Context context = csMethod.getContext();
+        List<List<Var>> classes = equivalentVarClasses.computeIfAbsent(
+                csMethod.getMethod(), m -> PointerEquivalence.compute(m.getIR()));
+        for (List<Var> vars : classes) {
+            Set<Pointer> reps = Sets.newSet();
+            vars.forEach(v -> reps.add(pointerFlowGraph.getRepresentative(
+                    csManager.getCSVar(context, v))));
+            if (reps.size() > 1 && canMerge(reps)) {
+                equivalentVars += reps.size() - 1;
+                mergePointers(reps, reps.iterator().next());
+            }
         }
     }
 
@@ -137,13 +300,13 @@ class Solver {
         @Override
         public Void visit(New stmt) {
             Obj obj = heapModel.getObj(stmt);
-            workList.addEntry(csManager.getCSVar(context, stmt.getLValue()), PointsToSetFactory.make(csManager.getCSObj(contextSelector.selectHeapContext(csMethod, obj), obj)));
+            workList.addEntry(csManager.getCSVar(context, stmt.getLValue()), ptsFactory.make(csManager.getCSObj(contextSelector.selectHeapContext(csMethod, obj), obj)));
             return StmtVisitor.super.visit(stmt);
         }
 
         @Override
         public Void visit(Copy stmt) {
-            addPFGEdge(csManager.getCSVar(context, stmt.getRValue()), csManager.getCSVar(context, stmt.getLValue()));
+            addPFGEdge(csManager.getCSVar(context, stmt.getRValue()), csManager.getCSVar(context, stmt.getLValue()), stmt);
             return StmtVisitor.super.visit(stmt);
         }
 
@@ -157,11 +320,11 @@ class Solver {
                     for (int i = 0; i < m.getParamCount(); ++i) {
                         Var a = stmt.getInvokeExp().getArg(i);
                         Var p = m.getIR().getParam(i);
-                        addPFGEdge(csManager.getCSVar(context, a), csManager.getCSVar(ct, p));
+                        addPFGEdge(csManager.getCSVar(context, a), csManager.getCSVar(ct, p), stmt);
                     }
                     if (stmt.getResult() != null) {
                         for (Var ret : m.getIR().getReturnVars()) {
-                            addPFGEdge(csManager.getCSVar(ct, ret), csManager.getCSVar(context, stmt.getResult()));
+                            addPFGEdge(csManager.getCSVar(ct, ret), csManager.getCSVar(context, stmt.getResult()), stmt);
                         }
                     }
                 }
@@ -172,7 +335,7 @@ class Solver {
         @Override
         public Void visit(StoreField stmt) {
             if (stmt.isStatic()) {
-                addPFGEdge(csManager.getCSVar(context, stmt.getRValue()), csManager.getStaticField(stmt.getFieldRef().resolve()));
+                addPFGEdge(csManager.getCSVar(context, stmt.getRValue()), csManager.getStaticField(stmt.getFieldRef().resolve()), stmt);
             }
             return StmtVisitor.super.visit(stmt);
         }
@@ -180,18 +343,21 @@ class Solver {
         @Override
         public Void visit(LoadField stmt) {
             if (stmt.isStatic()) {
-                addPFGEdge(csManager.getStaticField(stmt.getFieldRef().resolve()), csManager.getCSVar(context, stmt.getLValue()));
+                addPFGEdge(csManager.getStaticField(stmt.getFieldRef().resolve()), csManager.getCSVar(context, stmt.getLValue()), stmt);
             }
             return StmtVisitor.super.visit(stmt);
         }
     }
 
     /**
-     * Adds an edge "source -> target" to the PFG.
+     * Adds an edge "source -> target" (for statement stmt) to the PFG.
      */
-    private void addPFGEdge(Pointer source, Pointer target) {
+    private void addPFGEdge(Pointer source, Pointer target, Stmt stmt) {
         // TODO - finish me
-        if (pointerFlowGraph.addEdge(source, target)) {
+        source = pointerFlowGraph.getRepresentative(source);
+        target = pointerFlowGraph.getRepresentative(target);
+        if (source != target && pointerFlowGraph.addEdge(source, target)) {
+            metrics.countPFGEdge(stmt);
             if (!source.getPointsToSet().isEmpty()) {
                 workList.addEntry(target, source.getPointsToSet());
             }
@@ -203,33 +369,248 @@ class Solver {
      */
     private void analyze() {
         // TODO - finish me
-        while (!workList.isEmpty()) {
-            WorkList.Entry entry = workList.pollEntry();
-            PointsToSet delta = propagate(entry.pointer(), entry.pointsToSet());
-            if (entry.pointer() instanceof CSVar) {
-                CSVar csVar = (CSVar) entry.pointer();
+        if (parallel) {
+            analyzeInWaves();
+        } else {
+            long pops = 0;
+            while (!workList.isEmpty()) {
+                // the budget is also checked before the first pop, as the
+                // entry methods alone may exceed it
+                if (pops++ % BUDGET_CHECK_INTERVAL == 0) {
+                    checkBudget();
+                }
+                WorkList.Entry entry = workList.pollEntry();
+                metrics.countWorkListPop();
+                Pointer pointer = pointerFlowGraph.getRepresentative(entry.pointer());
+                PointsToSet delta = propagate(pointer,
+                        filter(pointer, entry.pointsToSet()));
+                if (!delta.isEmpty()) {
+                    metrics.countPropagatedObjects(delta.size());
+                    processMembers(pointer, delta);
+                    detectCycles(pointer);
+                }
+            }
+        }
+        if (parallel) {
+            logger.info("Solved in {} waves", waves);
+        }
+        if (degradableSelector != null && degradableSelector.isDegraded()) {
+            logger.info("Degraded {} methods to context insensitivity",
+                    degradableSelector.getDegradedMethods().size());
+        }
+        recordPointsToSets();
+        logger.info("Merged {} pointer-equivalent variables", equivalentVars);
+        logger.info("Collapsed {} pointers in {} PFG cycles",
+                collapsedPointers, collapsedCycles);
+    }
+
+    /**
+     * Degrades context sensitivity if the budget is exceeded.
+     */
+    private void checkBudget() {
+        if (degradableSelector != null && !degradableSelector.isDegraded()) {
+            String exceeded = budget.check(callGraph.getNumberOfMethods());
+            if (exceeded != null) {
+                logger.warn("Pointer analysis exceeds its budget ({})," +
+                        " degrading context sensitivity", exceeded);
+                degradableSelector.degrade();
+            }
+        }
+    }
+
+    /**
+     * Wave propagation. Each wave
+     * (1) adds the pending work-list entries to their pointers,
+     * (2) collapses the cycles of the PFG,
+     * (3) propagates points-to sets along the (now acyclic) PFG in
+     * topological order. The units (pointers, and the cycles which cannot
+     * be collapsed) of the same topological level do not depend on each
+     * other, thus they are processed in parallel, each pointer pulling
+     * the points-to sets of its predecessors, and
+     * (4) processes the objects newly added to the pointers, which adds
+     * new PFG edges (e.g., of field accesses and resolved calls) and
+     * work-list entries for the next wave.
+     * Solving terminates when a wave produces no work-list entries.
+     */
+    private void analyzeInWaves() {
+        // new objects of the pointers in the current wave
+        Map<Pointer, PointsToSet> deltas = new ConcurrentHashMap<>();
+        Set<Pointer> dirty = ConcurrentHashMap.newKeySet();
+        while (!workList.isEmpty() || !dirty.isEmpty()) {
+            ++waves;
+            checkBudget();
+            // (1) apply work-list entries
+            while (!workList.isEmpty()) {
+                WorkList.Entry entry = workList.pollEntry();
+                metrics.countWorkListPop();
+                Pointer pointer = pointerFlowGraph.getRepresentative(entry.pointer());
+                PointsToSet delta = pointer.getPointsToSet().addAllDiff(
+                        filter(pointer, entry.pointsToSet()));
+                if (!delta.isEmpty()) {
+                    addDelta(deltas, pointer, delta);
+                }
+            }
+            // (2) collapse cycles. The cycles which cannot be merged
+            // (due to type filtering) remain as units of several pointers.
+            List<List<Pointer>> order = new ArrayList<>();
+            for (Set<Pointer> scc : pointerFlowGraph.getSCCs()) {
+                Pointer rep = scc.iterator().next();
+                if (scc.size() > 1 && !canMerge(scc)) {
+                    order.add(List.copyOf(scc));
+                    continue;
+                }
+                if (scc.size() > 1) {
+                    ++collapsedCycles;
+                    collapsedPointers += scc.size() - 1;
+                    mergePointers(scc, rep);
+                    // pending objects of the merged pointers are not
+                    // processed yet, so they are moved to rep
+                    for (Pointer p : scc) {
+                        PointsToSet delta = deltas.remove(p);
+                        if (delta != null) {
+                            addDelta(deltas, rep, delta);
+                        }
+                    }
+                }
+                order.add(List.of(rep));
+            }
+            // (3) propagate in topological order. Merging may process
+            // new objects, which may merge pointers in turn, so the
+            // pointers are mapped to their (current) representatives.
+            MultiMap<Pointer, Pointer> preds = Maps.newMultiMap();
+            MultiMap<Pointer, Pointer> succs = Maps.newMultiMap();
+            Map<Pointer, Integer> levels = Maps.newMap(order.size());
+            List<List<List<Pointer>>> unitsByLevel = new ArrayList<>();
+            for (List<Pointer> members : order) {
+                List<Pointer> unit = new ArrayList<>(members.size());
+                for (Pointer pointer : members) {
+                    pointer = pointerFlowGraph.getRepresentative(pointer);
+                    if (!levels.containsKey(pointer) && !unit.contains(pointer)) {
+                        unit.add(pointer);
+                    }
+                }
+                if (unit.isEmpty()) {
+                    continue;
+                }
+                // all pointers of a unit are on the same level, which is
+                // computed before the edges inside the unit are added
+                int level = 0;
+                for (Pointer pointer : unit) {
+                    for (Pointer pred : preds.get(pointer)) {
+                        level = Math.max(level, levels.getOrDefault(pred, 0) + 1);
+                    }
+                }
+                if (level == unitsByLevel.size()) {
+                    unitsByLevel.add(new ArrayList<>());
+                }
+                unitsByLevel.get(level).add(unit);
+                for (Pointer pointer : unit) {
+                    levels.put(pointer, level);
+                    for (Pointer succ : pointerFlowGraph.getSuccsOf(pointer)) {
+                        succ = pointerFlowGraph.getRepresentative(succ);
+                        if (succ != pointer) {
+                            preds.put(succ, pointer);
+                            succs.put(pointer, succ);
+                        }
+                    }
+                }
+            }
+            Set<Pointer> reps = Sets.newSet();
+            dirty.forEach(p -> reps.add(pointerFlowGraph.getRepresentative(p)));
+            dirty.clear();
+            dirty.addAll(reps);
+            deltas.keySet().forEach(p -> dirty.addAll(
+                    succs.get(pointerFlowGraph.getRepresentative(p))));
+            // masks are prepared here as they are not thread-safe
+            Map<Pointer, ObjMask> masks = Maps.newMap();
+            if (typeFilter != null) {
+                for (Pointer pointer : levels.keySet()) {
+                    ObjMask mask = typeFilter.getMask(pointer);
+                    if (mask != null) {
+                        masks.put(pointer, mask);
+                    }
+                }
+            }
+            for (List<List<Pointer>> units : unitsByLevel) {
+                // preds and succs are read-only, and the pointers of a unit
+                // only read the points-to sets of earlier levels and of the
+                // same unit, and only write their own points-to sets, so the
+                // units are processed in parallel without locking. A unit of
+                // a cycle is processed sequentially until it is stable.
+                units.parallelStream().forEach(unit -> {
+                    boolean changed;
+                    do {
+                        changed = false;
+                        for (Pointer pointer : unit) {
+                            if (!dirty.remove(pointer)) {
+                                continue;
+                            }
+                            changed = true;
+                            PointsToSet pts = pointer.getPointsToSet();
+                            PointsToSet delta = ptsFactory.make();
+                            ObjMask mask = masks.get(pointer);
+                            for (Pointer pred : preds.get(pointer)) {
+                                PointsToSet predPts = pred.getPointsToSet();
+                                if (mask != null) {
+                                    predPts = predPts.filter(mask);
+                                }
+                                delta.addAll(pts.addAllDiff(predPts));
+                            }
+                            if (!delta.isEmpty()) {
+                                addDelta(deltas, pointer, delta);
+                                dirty.addAll(succs.get(pointer));
+                            }
+                        }
+                    } while (changed && unit.size() > 1);
+                });
+            }
+            // (4) process new objects
+            Map<Pointer, PointsToSet> newObjects = Map.copyOf(deltas);
+            deltas.clear();
+            newObjects.forEach((pointer, delta) -> {
+                metrics.countPropagatedObjects(delta.size());
+                processMembers(pointerFlowGraph.getRepresentative(pointer), delta);
+            });
+        }
+    }
+
+    private static void addDelta(Map<Pointer, PointsToSet> deltas,
+                                 Pointer pointer, PointsToSet delta) {
+        deltas.merge(pointer, delta, (oldDelta, newDelta) -> {
+            oldDelta.addAll(newDelta);
+            return oldDelta;
+        });
+    }
+
+    /**
+     * Processes the statements related to the pointers represented by
+     * {@code rep}, as {@code delta} is added to their points-to set.
+     */
+    private void processMembers(Pointer rep, PointsToSet delta) {
+        for (Pointer member : pointerFlowGraph.getMembers(rep)) {
+            if (member instanceof CSVar csVar) {
                 Context c = csVar.getContext();
                 Var var = csVar.getVar();
                 for (CSObj csObj : delta) {
                     for (StoreField stmt : var.getStoreFields()) {
                         if (stmt.isStatic()) {
-                            addPFGEdge(csManager.getCSVar(c, stmt.getRValue()), csManager.getStaticField(stmt.getFieldRef().resolve()));
+                            addPFGEdge(csManager.getCSVar(c, stmt.getRValue()), csManager.getStaticField(stmt.getFieldRef().resolve()), stmt);
                         } else {
-                            addPFGEdge(csManager.getCSVar(c, stmt.getRValue()), csManager.getInstanceField(csObj, stmt.getFieldRef().resolve()));
+                            addPFGEdge(csManager.getCSVar(c, stmt.getRValue()), csManager.getInstanceField(csObj, stmt.getFieldRef().resolve()), stmt);
                         }
                     }
                     for (LoadField stmt : var.getLoadFields()) {
                         if (stmt.isStatic()) {
-                            addPFGEdge(csManager.getStaticField(stmt.getFieldRef().resolve()), csManager.getCSVar(c, stmt.getLValue()));
+                            addPFGEdge(csManager.getStaticField(stmt.getFieldRef().resolve()), csManager.getCSVar(c, stmt.getLValue()), stmt);
                         } else {
-                            addPFGEdge(csManager.getInstanceField(csObj, stmt.getFieldRef().resolve()), csManager.getCSVar(c, stmt.getLValue()));
+                            addPFGEdge(csManager.getInstanceField(csObj, stmt.getFieldRef().resolve()), csManager.getCSVar(c, stmt.getLValue()), stmt);
                         }
                     }
                     for (StoreArray stmt : var.getStoreArrays()) {
-                        addPFGEdge(csManager.getCSVar(c, stmt.getRValue()), csManager.getArrayIndex(csObj));
+                        addPFGEdge(csManager.getCSVar(c, stmt.getRValue()), csManager.getArrayIndex(csObj), stmt);
                     }
                     for (LoadArray stmt : var.getLoadArrays()) {
-                        addPFGEdge(csManager.getArrayIndex(csObj), csManager.getCSVar(c, stmt.getLValue()));
+                        addPFGEdge(csManager.getArrayIndex(csObj), csManager.getCSVar(c, stmt.getLValue()), stmt);
                     }
                     processCall(csVar, csObj);
                 }
@@ -243,20 +624,90 @@ class Solver {
      */
     private PointsToSet propagate(Pointer pointer, PointsToSet pointsToSet) {
         // TODO - finish me
-        PointsToSet delta = PointsToSetFactory.make();
-        if (!pointsToSet.isEmpty()) {
-            for (CSObj csObj : pointsToSet) {
-                if (pointer.getPointsToSet().addObject(csObj)) {
-                    delta.addObject(csObj);
+        PointsToSet delta = pointer.getPointsToSet().addAllDiff(pointsToSet);
+        if (!delta.isEmpty()) {
+            for (Pointer succ : pointerFlowGraph.getSuccsOf(pointer)) {
+                succ = pointerFlowGraph.getRepresentative(succ);
+                if (succ != pointer) {
+                    workList.addEntry(succ, delta);
                 }
             }
-            if (!delta.isEmpty()) {
-                pointerFlowGraph.getSuccsOf(pointer).forEach(succ -> workList.addEntry(succ, delta));
-            }
         }
         return delta;
     }
 
+    /**
+     * Lazy cycle detection: a PFG edge whose source and target have
+     * points-to sets of the same size is likely in a cycle, so the cycle
+     * (if any) is searched for and collapsed. Each edge is checked once.
+     */
+    private void detectCycles(Pointer pointer) {
+        int size = pointer.getPointsToSet().size();
+        for (Pointer succ : pointerFlowGraph.getSuccsOf(pointer)) {
+            succ = pointerFlowGraph.getRepresentative(succ);
+            if (succ != pointer
+                    && succ.getPointsToSet().size() == size
+                    && checkedEdges.put(pointer, succ)) {
+                Set<Pointer> cycle = pointerFlowGraph.findCycle(pointer);
+                if (cycle.size() > 1 && canMerge(cycle)) {
+                    ++collapsedCycles;
+                    collapsedPointers += cycle.size() - 1;
+                    mergePointers(cycle, pointer);
+                    // successors of pointer have changed
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the objects in pts which can flow into pointer.
+     */
+    private PointsToSet filter(Pointer pointer, PointsToSet pts) {
+        return typeFilter != null ? typeFilter.filter(pointer, pts) : pts;
+    }
+
+    /**
+     * Pointers can share a points-to set only if the same objects can
+     * flow into them, i.e., they have the same filter type (if any).
+     */
+    private boolean canMerge(Set<Pointer> reps) {
+        if (typeFilter == null) {
+            return true;
+        }
+        Iterator<Pointer> iter = reps.iterator();
+        Type type = typeFilter.getType(iter.next());
+        while (iter.hasNext()) {
+            if (!Objects.equals(type, typeFilter.getType(iter.next()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Merges the given representatives into {@code rep}.
+     * The objects which are new to some merged pointers are
+     * processed as if they were propagated to the pointers.
+     */
+    private void mergePointers(Set<Pointer> reps, Pointer rep) {
+        PointsToSet pts = ptsFactory.make();
+        reps.forEach(p -> pts.addAll(p.getPointsToSet()));
+        for (Pointer p : reps) {
+            PointsToSet diff = p.getPointsToSet().addAllDiff(pts);
+            if (!diff.isEmpty()) {
+                processMembers(p, diff);
+            }
+        }
+        pointerFlowGraph.merge(reps, rep, pts);
+        for (Pointer succ : pointerFlowGraph.getSuccsOf(rep)) {
+            succ = pointerFlowGraph.getRepresentative(succ);
+            if (succ != rep) {
+                workList.addEntry(succ, pts);
+            }
+        }
+    }
+
     /**
      * Processes instance calls when points-to set of the receiver variable changes.
      *
@@ -265,21 +716,22 @@ class Solver {
      */
     private void processCall(CSVar recv, CSObj recvObj) {
         // TODO - finish me
+        metrics.countProcessCall();
         Context c = recv.getContext();
         for (Invoke stmt : recv.getVar().getInvokes()) {
             JMethod m = resolveCallee(recvObj, stmt);
             Context ct = contextSelector.selectContext(csManager.getCSCallSite(c, stmt), recvObj, m);
-            workList.addEntry(csManager.getCSVar(ct, m.getIR().getThis()), PointsToSetFactory.make(recvObj));
+            workList.addEntry(csManager.getCSVar(ct, m.getIR().getThis()), ptsFactory.make(recvObj));
             if (callGraph.addEdge(new Edge<>(CallGraphs.getCallKind(stmt), csManager.getCSCallSite(c, stmt), csManager.getCSMethod(ct, m)))) {
                 addReachable(csManager.getCSMethod(ct, m));
                 for (int i = 0; i < m.getParamCount(); ++i) {
                     Var a = stmt.getInvokeExp().getArg(i);
                     Var p = m.getIR().getParam(i);
-                    addPFGEdge(csManager.getCSVar(c, a), csManager.getCSVar(ct, p));
+                    addPFGEdge(csManager.getCSVar(c, a), csManager.getCSVar(ct, p), stmt);
                 }
                 if (stmt.getResult() != null) {
                     for (Var ret : m.getIR().getReturnVars()) {
-                        addPFGEdge(csManager.getCSVar(ct, ret), csManager.getCSVar(c, stmt.getResult()));
+                        addPFGEdge(csManager.getCSVar(ct, ret), csManager.getCSVar(c, stmt.getResult()), stmt);
                     }
                 }
             }
@@ -295,13 +747,29 @@ class Solver {
      * @return the resolved callee.
      */
     private JMethod resolveCallee(CSObj recv, Invoke callSite) {
+        metrics.countCalleeResolution();
         Type type = recv != null ? recv.getObject().getType() : null;
         return CallGraphs.resolveCallee(type, callSite);
     }
 
+    private void recordPointsToSets() {
+        List<PointsToSet> sets = new ArrayList<>();
+        Stream.<Collection<? extends Pointer>>of(csManager.getCSVars(),
+                        csManager.getStaticFields(), csManager.getInstanceFields(),
+                        csManager.getArrayIndexes())
+                .forEach(pointers -> pointers.forEach(
+                        p -> sets.add(p.getPointsToSet())));
+        sets.forEach(pts -> metrics.recordPointsToSetSize(pts.size()));
+        metrics.recordSharing(sets.size(), PointsToSetFactory.countDistinct(sets));
+    }
+
+    SolverMetrics getMetrics() {
+        return metrics;
+    }
+
     PointerAnalysisResult getResult() {
         if (result == null) {
-            result = new PointerAnalysisResultImpl(csManager, callGraph);
+            result = new ProjectedPointerAnalysisResult(csManager, callGraph);
         }
         return result;
     }
@@ -0,0 +1,110 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.pts;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Hash-conses bitmaps, i.e., keeps one canonical instance of equal bitmaps.
+ * <p>
+ * The canonical instances are held weakly, so that the bitmaps no longer
+ * used by any points-to set can be garbage collected. This class is
+ * thread-safe and does not lock, thus the points-to sets of different
+ * pointers can be modified in parallel, e.g., by the wave solver.
+ * The interned bitmaps must not be modified.
+ */
+final class BitmapInterner {
+
+    private final ConcurrentMap<Key, Key> bitmaps = new ConcurrentHashMap<>();
+
+    /**
+     * Queue of the keys whose bitmaps have been garbage collected.
+     */
+    private final ReferenceQueue<SparseBitmap> collected = new ReferenceQueue<>();
+
+    /**
+     * @return the canonical instance of the bitmap equal to given bitmap.
+     */
+    SparseBitmap intern(SparseBitmap bitmap) {
+        expunge();
+        Key key = new Key(bitmap, collected);
+        while (true) {
+            Key canonicalKey = bitmaps.putIfAbsent(key, key);
+            if (canonicalKey == null) {
+                return bitmap;
+            }
+            SparseBitmap canonical = canonicalKey.get();
+            if (canonical != null) {
+                return canonical;
+            }
+            // the canonical bitmap has just been collected
+            bitmaps.remove(canonicalKey, canonicalKey);
+        }
+    }
+
+    /**
+     * Removes the keys whose bitmaps have been garbage collected.
+     */
+    private void expunge() {
+        Reference<? extends SparseBitmap> ref;
+        while ((ref = collected.poll()) != null) {
+            bitmaps.remove(ref, ref);
+        }
+    }
+
+    /**
+     * Weak reference to a bitmap, which is compared by the content of
+     * the bitmap. A key whose bitmap is collected equals only itself.
+     */
+    private static final class Key extends WeakReference<SparseBitmap> {
+
+        private final int hash;
+
+        private Key(SparseBitmap bitmap, ReferenceQueue<SparseBitmap> queue) {
+            super(bitmap, queue);
+            this.hash = bitmap.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key that) || hash != that.hash) {
+                return false;
+            }
+            SparseBitmap bitmap = get();
+            return bitmap != null && bitmap.equals(that.get());
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
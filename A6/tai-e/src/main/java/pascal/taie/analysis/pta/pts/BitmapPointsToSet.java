@@ -0,0 +1,154 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.pts;
+
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Points-to set which stores the indexes of {@link CSObj}s in a bitmap.
+ * The indexes are mapped back to the objects by the factory of the set.
+ */
+class BitmapPointsToSet implements PointsToSet {
+
+    private final PointsToSetFactory factory;
+
+    final SparseBitmap bitmap;
+
+    BitmapPointsToSet(PointsToSetFactory factory) {
+        this(factory, new SparseBitmap());
+    }
+
+    private BitmapPointsToSet(PointsToSetFactory factory, SparseBitmap bitmap) {
+        this.factory = factory;
+        this.bitmap = bitmap;
+    }
+
+    @Override
+    public boolean addObject(CSObj obj) {
+        return bitmap.add(obj.getIndex());
+    }
+
+    @Override
+    public boolean addAll(PointsToSet pts) {
+        if (pts instanceof BitmapPointsToSet other) {
+            return bitmap.addAll(other.bitmap);
+        }
+        if (pts instanceof SharedPointsToSet other) {
+            return bitmap.addAll(other.bitmap);
+        }
+        boolean changed = false;
+        for (CSObj obj : pts) {
+            changed |= addObject(obj);
+        }
+        return changed;
+    }
+
+    @Override
+    public PointsToSet addAllDiff(PointsToSet pts) {
+        if (pts instanceof BitmapPointsToSet other) {
+            SparseBitmap diff = new SparseBitmap();
+            bitmap.addAll(other.bitmap, diff);
+            return new BitmapPointsToSet(factory, diff);
+        }
+        return PointsToSet.super.addAllDiff(pts);
+    }
+
+    @Override
+    public PointsToSet filter(ObjMask mask) {
+        return new BitmapPointsToSet(factory, bitmap.and(mask.bitmap));
+    }
+
+    @Override
+    public boolean contains(CSObj obj) {
+        return bitmap.contains(obj.getIndex());
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return bitmap.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return bitmap.size();
+    }
+
+    @Override
+    public Set<CSObj> getObjects() {
+        return new AbstractSet<>() {
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof CSObj obj && BitmapPointsToSet.this.contains(obj);
+            }
+
+            @Override
+            public Iterator<CSObj> iterator() {
+                return BitmapPointsToSet.this.iterator();
+            }
+
+            @Override
+            public int size() {
+                return BitmapPointsToSet.this.size();
+            }
+        };
+    }
+
+    @Override
+    public Stream<CSObj> objects() {
+        return StreamSupport.stream(Spliterators.spliterator(iterator(), size(),
+                Spliterator.DISTINCT | Spliterator.NONNULL), false);
+    }
+
+    @Override
+    public Iterator<CSObj> iterator() {
+        PrimitiveIterator.OfInt iterator = bitmap.iterator();
+        return new Iterator<>() {
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public CSObj next() {
+                return factory.getObject(iterator.nextInt());
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return getObjects().toString();
+    }
+}
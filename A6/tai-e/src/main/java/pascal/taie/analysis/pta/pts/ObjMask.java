@@ -0,0 +1,45 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.pts;
+
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+
+/**
+ * Set of {@link CSObj}s which is used to filter points-to sets, e.g.,
+ * the objects compatible with a type. The indexes of the objects are
+ * stored in a bitmap, so that a bitmap-based points-to set can be
+ * filtered by one bitmap intersection.
+ */
+public final class ObjMask {
+
+    final SparseBitmap bitmap = new SparseBitmap();
+
+    public void add(CSObj obj) {
+        bitmap.add(obj.getIndex());
+    }
+
+    public boolean contains(CSObj obj) {
+        return bitmap.contains(obj.getIndex());
+    }
+}
@@ -23,6 +23,7 @@
 package pascal.taie.analysis.pta.pts;
 
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.util.collection.Sets;
 
 import java.util.Iterator;
 import java.util.Set;
@@ -49,6 +50,36 @@ public interface PointsToSet extends Iterable<CSObj> {
      */
     boolean addAll(PointsToSet pts);
 
+    /**
+     * Adds all objects in given pts to this set.
+     *
+     * @return the objects which are newly added to this set.
+     * The default implementation returns them in a hybrid set.
+     */
+    default PointsToSet addAllDiff(PointsToSet pts) {
+        PointsToSet diff = new DelegatePointsToSet(Sets.newHybridSet());
+        for (CSObj obj : pts) {
+            if (addObject(obj)) {
+                diff.addObject(obj);
+            }
+        }
+        return diff;
+    }
+
+    /**
+     * @return a new set of the objects in this set which are in the mask.
+     * The default implementation returns them in a hybrid set.
+     */
+    default PointsToSet filter(ObjMask mask) {
+        PointsToSet result = new DelegatePointsToSet(Sets.newHybridSet());
+        for (CSObj obj : this) {
+            if (mask.contains(obj)) {
+                result.addObject(obj);
+            }
+        }
+        return result;
+    }
+
     /**
      * @return true if this set contains given object, otherwise false.
      */
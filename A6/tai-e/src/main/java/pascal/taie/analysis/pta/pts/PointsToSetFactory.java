@@ -22,29 +22,100 @@
 
 package pascal.taie.analysis.pta.pts;
 
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.config.ConfigException;
 import pascal.taie.util.collection.Sets;
 
+import java.util.Collection;
 import java.util.Set;
 import java.util.function.Supplier;
 
 /**
- * Provides static factory methods for {@link PointsToSet}.
+ * Makes the {@link PointsToSet}s of one pointer analysis.
  */
 public class PointsToSetFactory {
 
-    private static final Supplier<Set<CSObj>> setFactory = Sets::newHybridSet;
+    private final CSManager csManager;
 
-    public static PointsToSet make() {
-        return new DelegatePointsToSet(setFactory.get());
+    private final Supplier<PointsToSet> ptsFactory;
+
+    /**
+     * Canonical bitmaps of the shared points-to sets made by this factory.
+     */
+    private final BitmapInterner interner = new BitmapInterner();
+
+    /**
+     * @param kind      "hybrid" for sets backed by hybrid hash sets,
+     *                  "bitmap" for sets backed by bitmaps of object indexes, or
+     *                  "shared" for sets backed by hash-consed bitmaps which are
+     *                  shared by all sets of the same objects.
+     * @param csManager the manager of the objects in the sets, which maps
+     *                  the object indexes in bitmaps back to the objects.
+     */
+    public PointsToSetFactory(String kind, CSManager csManager) {
+        this.csManager = csManager;
+        this.ptsFactory = switch (kind) {
+            case "hybrid" -> () -> new DelegatePointsToSet(Sets.newHybridSet());
+            case "bitmap" -> () -> new BitmapPointsToSet(this);
+            case "shared" -> () -> new SharedPointsToSet(this);
+            default -> throw new ConfigException("Unknown kind of points-to sets: " + kind);
+        };
+    }
+
+    public PointsToSet make() {
+        return ptsFactory.get();
     }
 
     /**
      * Convenient method for making one-element points-to set.
      */
-    public static PointsToSet make(CSObj obj) {
+    public PointsToSet make(CSObj obj) {
         PointsToSet set = make();
         set.addObject(obj);
         return set;
     }
+
+    /**
+     * @return the canonical instance of the bitmap equal to given bitmap.
+     */
+    SparseBitmap intern(SparseBitmap bitmap) {
+        return interner.intern(bitmap);
+    }
+
+    /**
+     * @return the object of given index in a bitmap.
+     */
+    CSObj getObject(int index) {
+        return csManager.getObject(index);
+    }
+
+    /**
+     * @return the number of distinct representations of given points-to
+     * sets, where the sets sharing their content count once.
+     */
+    public static int countDistinct(Collection<PointsToSet> sets) {
+        Set<Object> representations = Sets.newSet();
+        for (PointsToSet pts : sets) {
+            representations.add(pts instanceof SharedPointsToSet shared ?
+                    shared.getRepresentation() : new IdentityKey(pts));
+        }
+        return representations.size();
+    }
+
+    /**
+     * Compares points-to sets by identity.
+     */
+    private record IdentityKey(PointsToSet pts) {
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof IdentityKey that && pts == that.pts;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(pts);
+        }
+    }
 }
@@ -0,0 +1,207 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.pts;
+
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Points-to set whose bitmap is hash-consed, i.e., all such sets of
+ * the same objects share one immutable bitmap, e.g., the sets of
+ * the variables which point to the same objects in different contexts.
+ * <p>
+ * The shared bitmap is never modified. Instead, each modification copies
+ * the bitmap, applies the change to the copy, and interns the result
+ * (copy-on-write). This trades time of copying for memory.
+ * The bitmaps are interned by the factory of the set, thus the sets of
+ * one analysis share their bitmaps, while different analyses do not.
+ */
+class SharedPointsToSet implements PointsToSet {
+
+    private static final SparseBitmap EMPTY = new SparseBitmap();
+
+    private final PointsToSetFactory factory;
+
+    /**
+     * The interned bitmap, which must not be modified.
+     */
+    SparseBitmap bitmap;
+
+    SharedPointsToSet(PointsToSetFactory factory) {
+        this(factory, EMPTY);
+    }
+
+    private SharedPointsToSet(PointsToSetFactory factory, SparseBitmap bitmap) {
+        this.factory = factory;
+        this.bitmap = bitmap;
+    }
+
+    /**
+     * @return the canonical instance of the bitmap equal to given bitmap.
+     */
+    private SparseBitmap intern(SparseBitmap bitmap) {
+        return bitmap.isEmpty() ? EMPTY : factory.intern(bitmap);
+    }
+
+    /**
+     * @return the bitmap of given points-to set. The result must not
+     * be modified.
+     */
+    private static SparseBitmap bitmapOf(PointsToSet pts) {
+        if (pts instanceof SharedPointsToSet shared) {
+            return shared.bitmap;
+        }
+        if (pts instanceof BitmapPointsToSet other) {
+            return other.bitmap;
+        }
+        SparseBitmap result = new SparseBitmap();
+        for (CSObj obj : pts) {
+            result.add(obj.getIndex());
+        }
+        return result;
+    }
+
+    /**
+     * @return the object which represents the content of this set,
+     * which is shared by all sets of the same objects.
+     */
+    Object getRepresentation() {
+        return bitmap;
+    }
+
+    @Override
+    public boolean addObject(CSObj obj) {
+        if (bitmap.contains(obj.getIndex())) {
+            return false;
+        }
+        SparseBitmap copy = new SparseBitmap(bitmap);
+        copy.add(obj.getIndex());
+        bitmap = intern(copy);
+        return true;
+    }
+
+    @Override
+    public boolean addAll(PointsToSet pts) {
+        SparseBitmap other = bitmapOf(pts);
+        if (other == bitmap || other.isEmpty()) {
+            return false;
+        }
+        SparseBitmap copy = new SparseBitmap(bitmap);
+        if (copy.addAll(other)) {
+            bitmap = intern(copy);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public PointsToSet addAllDiff(PointsToSet pts) {
+        SparseBitmap other = bitmapOf(pts);
+        if (other == bitmap || other.isEmpty()) {
+            return new SharedPointsToSet(factory);
+        }
+        SparseBitmap copy = new SparseBitmap(bitmap);
+        SparseBitmap diff = new SparseBitmap();
+        if (copy.addAll(other, diff)) {
+            bitmap = intern(copy);
+        }
+        return new SharedPointsToSet(factory, intern(diff));
+    }
+
+    @Override
+    public PointsToSet filter(ObjMask mask) {
+        return new SharedPointsToSet(factory, intern(bitmap.and(mask.bitmap)));
+    }
+
+    @Override
+    public boolean contains(CSObj obj) {
+        return bitmap.contains(obj.getIndex());
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return bitmap.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return bitmap.size();
+    }
+
+    @Override
+    public Set<CSObj> getObjects() {
+        return new AbstractSet<>() {
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof CSObj obj && SharedPointsToSet.this.contains(obj);
+            }
+
+            @Override
+            public Iterator<CSObj> iterator() {
+                return SharedPointsToSet.this.iterator();
+            }
+
+            @Override
+            public int size() {
+                return SharedPointsToSet.this.size();
+            }
+        };
+    }
+
+    @Override
+    public Stream<CSObj> objects() {
+        return StreamSupport.stream(Spliterators.spliterator(iterator(), size(),
+                Spliterator.DISTINCT | Spliterator.NONNULL), false);
+    }
+
+    @Override
+    public Iterator<CSObj> iterator() {
+        PrimitiveIterator.OfInt iterator = bitmap.iterator();
+        return new Iterator<>() {
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public CSObj next() {
+                return factory.getObject(iterator.nextInt());
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return getObjects().toString();
+    }
+}
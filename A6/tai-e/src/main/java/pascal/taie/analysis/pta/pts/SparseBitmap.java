@@ -0,0 +1,384 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.pts;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+/**
+ * Sparse bitmap of non-negative ints.
+ * <p>
+ * The bits are grouped into fixed-size blocks, and only non-empty blocks
+ * are stored, ordered by their keys (i.e., the high bits of the ints).
+ * Bulk operations work on whole words of two bitmaps at once.
+ */
+final class SparseBitmap {
+
+    /**
+     * Each block holds 2^BLOCK_SHIFT bits.
+     */
+    private static final int BLOCK_SHIFT = 9;
+
+    private static final int WORDS_PER_BLOCK = 1 << (BLOCK_SHIFT - 6);
+
+    private static final int[] EMPTY_KEYS = {};
+
+    private static final long[][] EMPTY_BLOCKS = {};
+
+    /**
+     * Keys of the blocks, in increasing order.
+     */
+    private int[] keys = EMPTY_KEYS;
+
+    private long[][] blocks = EMPTY_BLOCKS;
+
+    private int blockCount = 0;
+
+    private int size = 0;
+
+    SparseBitmap() {
+    }
+
+    /**
+     * Constructs a copy of the given bitmap.
+     */
+    SparseBitmap(SparseBitmap other) {
+        blockCount = other.blockCount;
+        size = other.size;
+        keys = Arrays.copyOf(other.keys, blockCount);
+        blocks = new long[blockCount][];
+        for (int i = 0; i < blockCount; ++i) {
+            blocks[i] = other.blocks[i].clone();
+        }
+    }
+
+    /**
+     * Sets the given bit.
+     *
+     * @return true if this bitmap changed as a result of the call,
+     * otherwise false.
+     */
+    boolean add(int bit) {
+        int key = bit >>> BLOCK_SHIFT;
+        int pos = Arrays.binarySearch(keys, 0, blockCount, key);
+        long[] block;
+        if (pos >= 0) {
+            block = blocks[pos];
+        } else {
+            block = new long[WORDS_PER_BLOCK];
+            insertBlock(-pos - 1, key, block);
+        }
+        int word = (bit >>> 6) & (WORDS_PER_BLOCK - 1);
+        long mask = 1L << bit;
+        if ((block[word] & mask) != 0) {
+            return false;
+        }
+        block[word] |= mask;
+        ++size;
+        return true;
+    }
+
+    /**
+     * @return true if the given bit is set, otherwise false.
+     */
+    boolean contains(int bit) {
+        if (bit < 0) {
+            return false;
+        }
+        int pos = Arrays.binarySearch(keys, 0, blockCount, bit >>> BLOCK_SHIFT);
+        if (pos < 0) {
+            return false;
+        }
+        int word = (bit >>> 6) & (WORDS_PER_BLOCK - 1);
+        return (blocks[pos][word] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Sets all bits of the given bitmap in this bitmap.
+     *
+     * @return true if this bitmap changed as a result of the call,
+     * otherwise false.
+     */
+    boolean addAll(SparseBitmap other) {
+        return addAll(other, null);
+    }
+
+    /**
+     * Sets all bits of the given bitmap in this bitmap, and also sets
+     * the bits which are newly set in this bitmap in {@code diff}
+     * (if it is not null).
+     *
+     * @return true if this bitmap changed as a result of the call,
+     * otherwise false.
+     */
+    boolean addAll(SparseBitmap other, SparseBitmap diff) {
+        if (other.size == 0) {
+            return false;
+        }
+        if (other == this) {
+            return false;
+        }
+        int oldSize = size;
+        int missing = 0;
+        int i = 0, j = 0;
+        while (j < other.blockCount) {
+            if (i == blockCount || other.keys[j] < keys[i]) {
+                ++missing;
+                ++j;
+            } else if (other.keys[j] == keys[i]) {
+                unionBlock(blocks[i], other.blocks[j], keys[i], diff);
+                ++i;
+                ++j;
+            } else {
+                ++i;
+            }
+        }
+        if (missing > 0) {
+            // merge the blocks which only exist in other bitmap
+            int newCount = blockCount + missing;
+            int[] newKeys = new int[newCount];
+            long[][] newBlocks = new long[newCount][];
+            i = 0;
+            j = 0;
+            int k = 0;
+            while (i < blockCount || j < other.blockCount) {
+                if (j == other.blockCount
+                        || (i < blockCount && keys[i] <= other.keys[j])) {
+                    if (j < other.blockCount && keys[i] == other.keys[j]) {
+                        ++j; // already merged above
+                    }
+                    newKeys[k] = keys[i];
+                    newBlocks[k++] = blocks[i++];
+                } else {
+                    long[] block = other.blocks[j].clone();
+                    int count = bitCount(block);
+                    size += count;
+                    if (diff != null) {
+                        diff.orBlock(other.keys[j], block.clone(), count);
+                    }
+                    newKeys[k] = other.keys[j];
+                    newBlocks[k++] = block;
+                    ++j;
+                }
+            }
+            keys = newKeys;
+            blocks = newBlocks;
+            blockCount = newCount;
+        }
+        return size != oldSize;
+    }
+
+    /**
+     * @return a new bitmap of the bits which are set in both this bitmap
+     * and the given bitmap.
+     */
+    SparseBitmap and(SparseBitmap other) {
+        SparseBitmap result = new SparseBitmap();
+        int i = 0, j = 0;
+        while (i < blockCount && j < other.blockCount) {
+            if (keys[i] < other.keys[j]) {
+                ++i;
+            } else if (keys[i] > other.keys[j]) {
+                ++j;
+            } else {
+                long[] block = new long[WORDS_PER_BLOCK];
+                int count = 0;
+                for (int w = 0; w < WORDS_PER_BLOCK; ++w) {
+                    block[w] = blocks[i][w] & other.blocks[j][w];
+                    count += Long.bitCount(block[w]);
+                }
+                if (count > 0) {
+                    result.orBlock(keys[i], block, count);
+                }
+                ++i;
+                ++j;
+            }
+        }
+        return result;
+    }
+
+    private void unionBlock(long[] block, long[] other, int key, SparseBitmap diff) {
+        long[] newBits = null;
+        int added = 0;
+        for (int w = 0; w < WORDS_PER_BLOCK; ++w) {
+            long bits = other[w] & ~block[w];
+            if (bits != 0) {
+                block[w] |= bits;
+                added += Long.bitCount(bits);
+                if (diff != null) {
+                    if (newBits == null) {
+                        newBits = new long[WORDS_PER_BLOCK];
+                    }
+                    newBits[w] = bits;
+                }
+            }
+        }
+        size += added;
+        if (newBits != null) {
+            diff.orBlock(key, newBits, added);
+        }
+    }
+
+    /**
+     * Sets the bits of the given block in this bitmap. If this bitmap has
+     * no block of the same key, the given block is taken over by this bitmap.
+     *
+     * @param count the number of set bits in the given block.
+     */
+    private void orBlock(int key, long[] block, int count) {
+        int pos = blockCount > 0 && keys[blockCount - 1] < key
+                ? -blockCount - 1 // fast path for appending
+                : Arrays.binarySearch(keys, 0, blockCount, key);
+        if (pos < 0) {
+            insertBlock(-pos - 1, key, block);
+            size += count;
+        } else {
+            long[] target = blocks[pos];
+            for (int w = 0; w < WORDS_PER_BLOCK; ++w) {
+                size += Long.bitCount(block[w] & ~target[w]);
+                target[w] |= block[w];
+            }
+        }
+    }
+
+    private void insertBlock(int pos, int key, long[] block) {
+        if (blockCount == keys.length) {
+            int newLength = Math.max(4, blockCount + (blockCount >> 1));
+            keys = Arrays.copyOf(keys, newLength);
+            blocks = Arrays.copyOf(blocks, newLength);
+        }
+        System.arraycopy(keys, pos, keys, pos + 1, blockCount - pos);
+        System.arraycopy(blocks, pos, blocks, pos + 1, blockCount - pos);
+        keys[pos] = key;
+        blocks[pos] = block;
+        ++blockCount;
+    }
+
+    private static int bitCount(long[] block) {
+        int count = 0;
+        for (long word : block) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        // blocks are never empty, so equal bitmaps have the same blocks
+        if (!(o instanceof SparseBitmap that)
+                || size != that.size || blockCount != that.blockCount) {
+            return false;
+        }
+        for (int i = 0; i < blockCount; ++i) {
+            if (keys[i] != that.keys[i]
+                    || !Arrays.equals(blocks[i], that.blocks[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = size;
+        for (int i = 0; i < blockCount; ++i) {
+            hash = 31 * hash + keys[i];
+            hash = 31 * hash + Arrays.hashCode(blocks[i]);
+        }
+        return hash;
+    }
+
+    /**
+     * @return the number of set bits.
+     */
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Performs the given action for each set bit, in increasing order.
+     */
+    void forEach(IntConsumer action) {
+        for (int i = 0; i < blockCount; ++i) {
+            int base = keys[i] << BLOCK_SHIFT;
+            long[] block = blocks[i];
+            for (int w = 0; w < WORDS_PER_BLOCK; ++w) {
+                long word = block[w];
+                while (word != 0) {
+                    action.accept(base + (w << 6) + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return an iterator over the set bits, in increasing order.
+     */
+    PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+
+            private int block = 0;
+
+            private int word = 0;
+
+            private long bits = blockCount > 0 ? blocks[0][0] : 0;
+
+            @Override
+            public boolean hasNext() {
+                while (bits == 0) {
+                    if (++word == WORDS_PER_BLOCK) {
+                        word = 0;
+                        ++block;
+                    }
+                    if (block >= blockCount) {
+                        return false;
+                    }
+                    bits = blocks[block][word];
+                }
+                return true;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int bit = (keys[block] << BLOCK_SHIFT) + (word << 6)
+                        + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                return bit;
+            }
+        };
+    }
+}
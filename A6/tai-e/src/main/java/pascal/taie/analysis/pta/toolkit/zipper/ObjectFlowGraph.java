@@ -0,0 +1,185 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.toolkit.zipper;
+
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.InstanceFieldAccess;
+import pascal.taie.ir.exp.InvokeExp;
+import pascal.taie.ir.exp.InvokeInstanceExp;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Cast;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.LoadArray;
+import pascal.taie.ir.stmt.LoadField;
+import pascal.taie.ir.stmt.StmtVisitor;
+import pascal.taie.ir.stmt.StoreArray;
+import pascal.taie.ir.stmt.StoreField;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+
+import java.util.Set;
+
+/**
+ * Object flow graph built on a context-insensitive pointer analysis result.
+ * <p>
+ * The nodes are variables, static fields ({@link JField}),
+ * instance fields ({@link InstanceFieldNode}) and array indexes
+ * ({@link ArrayIndexNode}), and an edge from node x to node y means that
+ * the objects pointed to by x may flow to y.
+ */
+class ObjectFlowGraph {
+
+    /**
+     * Instance field {@code field} of abstract object {@code base}.
+     */
+    record InstanceFieldNode(Obj base, JField field) {
+    }
+
+    /**
+     * Array index of abstract array object {@code base}.
+     */
+    record ArrayIndexNode(Obj base) {
+    }
+
+    private final PointerAnalysisResult pta;
+
+    private final MultiMap<Object, Object> succs = Maps.newMultiMap();
+
+    private final MultiMap<Object, Object> preds = Maps.newMultiMap();
+
+    ObjectFlowGraph(PointerAnalysisResult pta) {
+        this.pta = pta;
+        CallGraph<Invoke, JMethod> callGraph = pta.getCallGraph();
+        callGraph.reachableMethods().forEach(method -> {
+            EdgeBuilder builder = new EdgeBuilder(callGraph);
+            method.getIR().forEach(stmt -> stmt.accept(builder));
+        });
+    }
+
+    Set<Object> getSuccsOf(Object node) {
+        return succs.get(node);
+    }
+
+    Set<Object> getPredsOf(Object node) {
+        return preds.get(node);
+    }
+
+    private void addEdge(Object source, Object target) {
+        if (succs.put(source, target)) {
+            preds.put(target, source);
+        }
+    }
+
+    private class EdgeBuilder implements StmtVisitor<Void> {
+
+        private final CallGraph<Invoke, JMethod> callGraph;
+
+        private EdgeBuilder(CallGraph<Invoke, JMethod> callGraph) {
+            this.callGraph = callGraph;
+        }
+
+        @Override
+        public Void visit(Copy stmt) {
+            addEdge(stmt.getRValue(), stmt.getLValue());
+            return null;
+        }
+
+        @Override
+        public Void visit(Cast stmt) {
+            addEdge(stmt.getRValue().getValue(), stmt.getLValue());
+            return null;
+        }
+
+        @Override
+        public Void visit(LoadField stmt) {
+            JField field = stmt.getFieldRef().resolve();
+            if (stmt.isStatic()) {
+                addEdge(field, stmt.getLValue());
+            } else {
+                Var base = ((InstanceFieldAccess) stmt.getFieldAccess()).getBase();
+                for (Obj obj : pta.getPointsToSet(base)) {
+                    addEdge(new InstanceFieldNode(obj, field), stmt.getLValue());
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(StoreField stmt) {
+            JField field = stmt.getFieldRef().resolve();
+            if (stmt.isStatic()) {
+                addEdge(stmt.getRValue(), field);
+            } else {
+                Var base = ((InstanceFieldAccess) stmt.getFieldAccess()).getBase();
+                for (Obj obj : pta.getPointsToSet(base)) {
+                    addEdge(stmt.getRValue(), new InstanceFieldNode(obj, field));
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(LoadArray stmt) {
+            for (Obj array : pta.getPointsToSet(stmt.getArrayAccess().getBase())) {
+                addEdge(new ArrayIndexNode(array), stmt.getLValue());
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(StoreArray stmt) {
+            for (Obj array : pta.getPointsToSet(stmt.getArrayAccess().getBase())) {
+                addEdge(stmt.getRValue(), new ArrayIndexNode(array));
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(Invoke stmt) {
+            InvokeExp invokeExp = stmt.getInvokeExp();
+            Var result = stmt.getResult();
+            for (JMethod callee : callGraph.getCalleesOf(stmt)) {
+                IR ir = callee.getIR();
+                if (invokeExp instanceof InvokeInstanceExp instanceExp
+                        && !callee.isStatic()) {
+                    addEdge(instanceExp.getBase(), ir.getThis());
+                }
+                for (int i = 0; i < invokeExp.getArgCount(); ++i) {
+                    addEdge(invokeExp.getArg(i), ir.getParam(i));
+                }
+                if (result != null) {
+                    for (Var ret : ir.getReturnVars()) {
+                        addEdge(ret, result);
+                    }
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.toolkit.zipper;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.toolkit.PointerAnalysisResultEx;
+import pascal.taie.analysis.pta.toolkit.PointerAnalysisResultExImpl;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Identifies precision-critical methods in the style of Zipper, i.e.,
+ * the methods through which objects may flow into an object of some type
+ * (via parameters of the methods invoked on it) and flow out of it again
+ * (via return values of such methods). Applying context sensitivity
+ * only to these methods retains most of the precision of applying it
+ * to all methods.
+ * <p>
+ * For each type, the object flows are traced on the {@link ObjectFlowGraph}
+ * and restricted to the methods invoked on the objects of the type,
+ * the methods invoked on the objects allocated in these methods,
+ * and the static methods called by these methods (transitively).
+ */
+public class Zipper {
+
+    private static final Logger logger = LogManager.getLogger(Zipper.class);
+
+    private final PointerAnalysisResultEx pta;
+
+    private final CallGraph<Invoke, JMethod> callGraph;
+
+    private final ObjectFlowGraph ofg;
+
+    /**
+     * @param pta result of a context-insensitive pointer analysis.
+     */
+    public Zipper(PointerAnalysisResult pta) {
+        this.pta = new PointerAnalysisResultExImpl(pta);
+        this.callGraph = pta.getCallGraph();
+        this.ofg = new ObjectFlowGraph(pta);
+    }
+
+    /**
+     * @return the precision-critical methods.
+     */
+    public Set<JMethod> selectPrecisionCriticalMethods() {
+        MultiMap<Type, Obj> typeObjs = Maps.newMultiMap();
+        pta.getBase().getObjects().forEach(obj -> typeObjs.put(obj.getType(), obj));
+        Set<JMethod> pcms = Sets.newSet();
+        typeObjs.forEachSet((type, objs) ->
+                pcms.addAll(getPrecisionCriticalMethods(objs)));
+        logger.info("#precision-critical methods: {} (of {} reachable methods)",
+                pcms.size(), callGraph.getNumberOfMethods());
+        return pcms;
+    }
+
+    private Set<JMethod> getPrecisionCriticalMethods(Set<Obj> objs) {
+        Set<JMethod> invokedMethods = Sets.newSet();
+        objs.forEach(obj -> invokedMethods.addAll(pta.getMethodsInvokedOn(obj)));
+        if (invokedMethods.isEmpty()) {
+            return Set.of();
+        }
+        Set<JMethod> scope = getScope(invokedMethods);
+        Set<Object> ins = Sets.newSet();
+        Set<Object> outs = Sets.newSet();
+        for (JMethod method : invokedMethods) {
+            IR ir = method.getIR();
+            ins.addAll(ir.getParams());
+            outs.addAll(ir.getReturnVars());
+        }
+        Set<Object> flowIn = reach(ins, ofg::getSuccsOf, scope);
+        Set<Object> flowOut = reach(outs, ofg::getPredsOf, scope);
+        Set<JMethod> pcms = Sets.newSet();
+        for (Object node : flowIn) {
+            if (node instanceof Var var && flowOut.contains(var)) {
+                pcms.add(var.getMethod());
+            }
+        }
+        return pcms;
+    }
+
+    /**
+     * @return the methods to which the object flows
+     * of given invoked methods are restricted.
+     */
+    private Set<JMethod> getScope(Set<JMethod> invokedMethods) {
+        Set<JMethod> scope = Sets.newSet();
+        scope.addAll(invokedMethods);
+        Deque<JMethod> workList = new ArrayDeque<>(invokedMethods);
+        while (!workList.isEmpty()) {
+            JMethod method = workList.pop();
+            for (Obj obj : pta.getObjectsAllocatedIn(method)) {
+                for (JMethod m : pta.getMethodsInvokedOn(obj)) {
+                    if (scope.add(m)) {
+                        workList.push(m);
+                    }
+                }
+            }
+            for (Invoke callSite : callGraph.getCallSitesIn(method)) {
+                for (JMethod callee : callGraph.getCalleesOf(callSite)) {
+                    if (callee.isStatic() && scope.add(callee)) {
+                        workList.push(callee);
+                    }
+                }
+            }
+        }
+        return scope;
+    }
+
+    /**
+     * @return the nodes reachable from given nodes via {@code next},
+     * where the variable nodes are restricted to the methods in scope.
+     */
+    private static Set<Object> reach(Collection<Object> roots,
+                                     Function<Object, Set<Object>> next,
+                                     Set<JMethod> scope) {
+        Set<Object> visited = Sets.newSet();
+        visited.addAll(roots);
+        Deque<Object> workList = new ArrayDeque<>(roots);
+        while (!workList.isEmpty()) {
+            for (Object succ : next.apply(workList.pop())) {
+                if (succ instanceof Var var && !scope.contains(var.getMethod())) {
+                    continue;
+                }
+                if (visited.add(succ)) {
+                    workList.push(succ);
+                }
+            }
+        }
+        return visited;
+    }
+}
@@ -22,8 +22,44 @@
 
 package pascal.taie.analysis.pta;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.Test;
+import pascal.taie.World;
 import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
+import pascal.taie.analysis.pta.core.cs.element.ArrayCSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.InstanceField;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.cs.CSPTA;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.collection.Pair;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 public class CSPTATest {
 
@@ -84,6 +120,216 @@ public class CSPTATest {
         Tests.testCSPTA(DIR, "TwoType", "cs:2-type");
     }
 
+    @Test
+    public void testTwoObjectScaler() {
+        // with the default TST, Scaler selects 2-obj for all methods
+        // of this small program
+        Tests.testCSPTA(DIR, "TwoObject", "cs:scaler");
+    }
+
+    @Test
+    public void testTwoObjectZipper() {
+        Tests.testCSPTA(DIR, "TwoObject", "cs:2-obj");
+        var precise = getVarPointsToSets(Obj::toString);
+        // context sensitivity only for precision-critical methods
+        Tests.runCSPTA(DIR, "TwoObject", "cs:2-obj", "zipper:true");
+        assertSound(precise, getVarPointsToSets(Obj::toString));
+    }
+
+    @Test
+    public void testTwoObjectBitmapPts() {
+        Tests.testCSPTA(DIR, "TwoObject", "cs:2-obj", "pts:bitmap");
+    }
+
+    @Test
+    public void testTwoObjectBitmapPtsAcrossAnalyses() {
+        // objects in bitmaps are resolved by the CS manager of each
+        // analysis, thus a result is unaffected by later analyses
+        Tests.testCSPTA(DIR, "TwoObject", "cs:2-obj", "pts:bitmap");
+        PointerAnalysisResult first = World.get().getResult(CSPTA.ID);
+        Map<String, Set<String>> pts = getCSVarPointsToSets(first);
+        Tests.runCSPTA(DIR, "OneObject", "cs:1-obj", "pts:bitmap");
+        assertEquals(pts, getCSVarPointsToSets(first));
+    }
+
+    @Test
+    public void testTwoObjectSharedPts() {
+        Tests.testCSPTA(DIR, "TwoObject", "cs:2-obj", "pts:shared");
+    }
+
+    @Test
+    public void testTwoObjectWaveSolver() {
+        Tests.testCSPTA(DIR, "TwoObject", "cs:2-obj", "solver:wave");
+    }
+
+    @Test
+    public void testTwoObjectWaveSolverSharedPts() {
+        Tests.testCSPTA(DIR, "TwoObject", "cs:2-obj",
+                "solver:wave", "pts:shared");
+    }
+
+    @Test
+    public void testTwoObjectTypeFilter() {
+        Tests.testCSPTA(DIR, "TwoObject", "cs:2-obj", "type-filter:true");
+    }
+
+    @Test
+    public void testTwoObjectWaveSolverTypeFilter() {
+        Tests.testCSPTA(DIR, "TwoObject", "cs:2-obj",
+                "solver:wave", "type-filter:true");
+    }
+
+    @Test
+    public void testTwoObjectPriorityWorkList() {
+        Tests.testCSPTA(DIR, "TwoObject", "cs:2-obj", "work-list:priority");
+    }
+
+    @Test
+    public void testTwoObjectMetricsReport() throws IOException {
+        File report = File.createTempFile("cspta-metrics", ".json");
+        report.deleteOnExit();
+        Tests.testCSPTA(DIR, "TwoObject", "cs:2-obj",
+                "metrics-file:" + report.getPath());
+        Map<?, ?> metrics = new ObjectMapper().readValue(report, Map.class);
+        assertEquals(CSPTA.ID, metrics.get("solver"));
+        for (String key : new String[]{ "workList", "solvingTimeNanos",
+                "propagatedObjects", "processCalls", "calleeResolutions",
+                "mostExpensiveMethods", "pointsToSets",
+                "distinctPointsToSets", "dedupRatio" }) {
+            assertTrue(key, metrics.containsKey(key));
+        }
+        assertTrue(((Number) metrics.get("workListPops")).longValue() > 0);
+        assertTrue(((Number) metrics.get("reachableMethods")).intValue() > 0);
+        assertFalse(((Map<?, ?>) metrics.get("pfgEdges")).isEmpty());
+        assertFalse(((List<?>) metrics.get("pointsToSetSizes")).isEmpty());
+    }
+
+    @Test
+    public void testTwoCallArrayCSManager() {
+        Tests.testCSPTA(DIR, "TwoCall", "cs:2-call", "cs-manager:array");
+    }
+
+    @Test
+    public void testArrayCSManagerContextsOfDifferentFactories() {
+        CSManager csManager = new ArrayCSManager("hybrid");
+        Obj obj = new Obj() {
+            @Override
+            public Type getType() {
+                return null;
+            }
+
+            @Override
+            public Object getAllocation() {
+                return null;
+            }
+
+            @Override
+            public Optional<JMethod> getContainerMethod() {
+                return Optional.empty();
+            }
+
+            @Override
+            public Type getContainerType() {
+                return null;
+            }
+        };
+        // contexts of different factories may have the same id
+        Context c1 = new TrieContext.Factory().make("c1");
+        Context c2 = new TrieContext.Factory().make("c2");
+        CSObj o1 = csManager.getCSObj(c1, obj);
+        CSObj o2 = csManager.getCSObj(c2, obj);
+        assertSame(c1, o1.getContext());
+        assertSame(c2, o2.getContext());
+        assertSame(o1, csManager.getCSObj(c1, obj));
+        assertSame(o2, csManager.getCSObj(c2, obj));
+    }
+
+    @Test
+    public void testTwoObjectWithinBudget() {
+        Tests.testCSPTA(DIR, "TwoObject", "cs:2-obj",
+                "time-budget:3600", "context-budget:100000");
+    }
+
+    @Test
+    public void testTwoObjectDegraded() {
+        Tests.testCSPTA(DIR, "TwoObject", "cs:2-obj");
+        var precise = getVarPointsToSets(Obj::toString);
+        // the budget is exceeded before propagation, thus the methods
+        // reached afterwards are analyzed context-insensitively
+        Tests.runCSPTA(DIR, "TwoObject", "cs:2-obj", "context-budget:1");
+        var degraded = getVarPointsToSets(Obj::toString);
+        assertNotEquals(precise, degraded);
+        assertSound(precise, degraded);
+    }
+
+    @Test
+    public void testTwoObjectTypeCappedModel() {
+        // all allocation sites of each type are merged
+        testMergingHeapModel("heap-model:type-capped", "type-cap:0");
+    }
+
+    @Test
+    public void testTwoObjectTypeMergingModel() {
+        testMergingHeapModel("heap-model:type-merging",
+                "merge-types:List*,java.lang.Object");
+    }
+
+    /**
+     * Runs 2-obj on TwoObject with a heap model which merges objects, and
+     * checks that the model merges objects, and that the points-to sets
+     * (represented by the types of the objects) are sound.
+     */
+    private static void testMergingHeapModel(String... heapModelOpts) {
+        Function<Obj, String> toType = o -> o.getType().getName();
+        Tests.testCSPTA(DIR, "TwoObject", "cs:2-obj");
+        int preciseObjs = countObjects(getVarPointsToSets(Obj::toString));
+        var precise = getVarPointsToSets(toType);
+        String[] opts = Stream.concat(Stream.of("cs:2-obj"),
+                Arrays.stream(heapModelOpts)).toArray(String[]::new);
+        Tests.runCSPTA(DIR, "TwoObject", opts);
+        assertTrue(countObjects(getVarPointsToSets(Obj::toString)) < preciseObjs);
+        assertSound(precise, getVarPointsToSets(toType));
+    }
+
+    @Test
+    public void testTwoObjectProjection() {
+        Tests.testCSPTA(DIR, "TwoObject", "cs:2-obj");
+        PointerAnalysisResult result = World.get().getResult(CSPTA.ID);
+        // the context-insensitive projection merges all contexts
+        Map<Var, Set<Obj>> merged = new HashMap<>();
+        result.getCSVars().forEach(csVar -> result.getPointsToSet(csVar)
+                .forEach(csObj -> merged.computeIfAbsent(
+                                csVar.getVar(), v -> new HashSet<>())
+                        .add(csObj.getObject())));
+        Map<Set<Obj>, Set<Obj>> projectedSets = new HashMap<>();
+        for (Var var : result.getVars()) {
+            Set<Obj> pts = result.getPointsToSet(var);
+            assertEquals(merged.getOrDefault(var, Set.of()), pts);
+            // the projection is cached, and equal sets are shared
+            assertSame(pts, result.getPointsToSet(var));
+            if (!pts.isEmpty()) {
+                assertSame(projectedSets.computeIfAbsent(pts, s -> s), pts);
+            }
+        }
+        Map<Pair<Var, JField>, Set<Obj>> fieldPts = new HashMap<>();
+        for (InstanceField field : result.getInstanceFields()) {
+            for (CSVar csVar : result.getCSVars()) {
+                if (result.getPointsToSet(csVar).contains(field.getBase())) {
+                    field.getPointsToSet().forEach(csObj -> fieldPts.computeIfAbsent(
+                                    new Pair<>(csVar.getVar(), field.getField()),
+                                    p -> new HashSet<>())
+                            .add(csObj.getObject()));
+                }
+            }
+        }
+        assertFalse(fieldPts.isEmpty());
+        fieldPts.forEach((p, pts) -> {
+            Set<Obj> projected = result.getPointsToSet(p.first(), p.second());
+            assertEquals(pts, projected);
+            assertSame(projected, result.getPointsToSet(p.first(), p.second()));
+        });
+    }
+
     @Test
     public void testStaticField() {
         Tests.testCSPTA(DIR, "StaticField");
@@ -93,4 +339,51 @@ public class CSPTATest {
     public void testArray() {
         Tests.testCSPTA(DIR, "Array");
     }
+
+    /**
+     * @return the context-insensitive points-to sets of the variables in
+     * the result of the last run, where the objects are represented by
+     * strings given by toString, as the results of different runs are
+     * compared.
+     */
+    private static Map<String, Set<String>> getVarPointsToSets(
+            Function<Obj, String> toString) {
+        PointerAnalysisResult result = World.get().getResult(CSPTA.ID);
+        Map<String, Set<String>> pts = new TreeMap<>();
+        result.getVars().forEach(v -> pts.put(v.getMethod() + "/" + v.getName(),
+                result.getPointsToSet(v)
+                        .stream()
+                        .map(toString)
+                        .collect(Collectors.toSet())));
+        return pts;
+    }
+
+    private static Map<String, Set<String>> getCSVarPointsToSets(
+            PointerAnalysisResult result) {
+        Map<String, Set<String>> pts = new TreeMap<>();
+        result.getCSVars().forEach(v -> pts.put(v.toString(),
+                result.getPointsToSet(v)
+                        .stream()
+                        .map(CSObj::toString)
+                        .collect(Collectors.toSet())));
+        return pts;
+    }
+
+    private static int countObjects(Map<String, Set<String>> pointsToSets) {
+        return (int) pointsToSets.values()
+                .stream()
+                .flatMap(Set::stream)
+                .distinct()
+                .count();
+    }
+
+    /**
+     * Asserts that the less precise points-to sets are sound with respect
+     * to the precise ones, i.e., each of them includes the precise one.
+     */
+    private static void assertSound(Map<String, Set<String>> precise,
+                                    Map<String, Set<String>> imprecise) {
+        precise.forEach((var, pts) -> assertTrue(var + " misses objects",
+                imprecise.getOrDefault(var, Set.of()).containsAll(pts)));
+    }
 }
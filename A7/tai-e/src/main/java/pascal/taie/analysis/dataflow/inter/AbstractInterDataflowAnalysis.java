@@ -27,6 +27,7 @@ import pascal.taie.analysis.ProgramAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.graph.icfg.CallEdge;
 import pascal.taie.analysis.graph.icfg.CallToReturnEdge;
+import pascal.taie.analysis.graph.icfg.CompactICFG;
 import pascal.taie.analysis.graph.icfg.ICFG;
 import pascal.taie.analysis.graph.icfg.ICFGBuilder;
 import pascal.taie.analysis.graph.icfg.ICFGEdge;
@@ -120,6 +121,12 @@ public abstract class AbstractInterDataflowAnalysis<Method, Node, Fact>
     @Override
     public Object analyze() {
         icfg = World.get().getResult(ICFGBuilder.ID);
+        if (getOptions().getBooleanOrDefault("compact-icfg", false)) {
+            // replace the ICFG in World by its frozen version,
+            // so that the mutable one can be garbage collected
+            icfg = CompactICFG.freeze(icfg);
+            World.get().storeResult(ICFGBuilder.ID, icfg);
+        }
         initialize();
         solver = new InterSolver<>(this, icfg);
         DataflowResult<Node, Fact> result = solver.solve();
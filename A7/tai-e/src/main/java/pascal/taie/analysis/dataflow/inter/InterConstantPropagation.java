@@ -26,7 +26,6 @@ import pascal.taie.World;
 import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
 import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
 import pascal.taie.analysis.dataflow.analysis.constprop.Value;
-import pascal.taie.analysis.dataflow.fact.MapFact;
 import pascal.taie.analysis.graph.cfg.CFG;
 import pascal.taie.analysis.graph.cfg.CFGBuilder;
 import pascal.taie.analysis.graph.icfg.CallEdge;
@@ -41,11 +40,10 @@ import pascal.taie.ir.exp.*;
 import pascal.taie.ir.stmt.*;
 import pascal.taie.language.classes.JField;
 import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
 
-import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -58,17 +56,22 @@ public class InterConstantPropagation extends
 
     private final ConstantPropagation cp;
 
-    private MapFact<JField, Set<StoreField>> staticStoreFields;
+    private PointerAnalysisResult pta;
 
-    private MapFact<JField, Set<LoadField>> staticLoadFields;
-
-    private MapFact<Var, Set<StoreField>> instanceStoreFields;
-
-    private MapFact<Var, Set<LoadField>> instanceLoadFields;
-
-    private MapFact<Var, Set<StoreArray>> storeArrays;
-
-    private MapFact<Var, Set<LoadArray>> loadArrays;
+    /**
+     * Abstract heap: the meet of the values stored to each heap cell so far.
+     * The cells only move down the lattice as store facts change, thus they
+     * are maintained incrementally when the stores are processed.
+     * <p>
+     * The cells are static fields ({@link JField}), instance fields of
+     * objects ({@link FieldCell}), and the buckets of array objects:
+     * the values stored with constant indexes are bucketed by the index
+     * ({@link ArrayIndexCell}), the values stored with NAC indexes are kept
+     * in a separate bucket ({@link ArrayNACIndexCell}), and the meet of all
+     * stored values is kept for the loads with NAC indexes
+     * ({@link ArrayAllCell}).
+     */
+    private Map<Object, Value> heapValues;
 
     public InterConstantPropagation(AnalysisConfig config) {
         super(config);
@@ -78,57 +81,95 @@ public class InterConstantPropagation extends
     @Override
     protected void initialize() {
         String ptaId = getOptions().getString("pta");
-        PointerAnalysisResult pta = World.get().getResult(ptaId);
+        pta = World.get().getResult(ptaId);
         // You can do initialization work here
-        staticStoreFields = new MapFact<>(Collections.emptyMap());
-        staticLoadFields = new MapFact<>(Collections.emptyMap());
-        instanceStoreFields = new MapFact<>(Collections.emptyMap());
-        instanceLoadFields = new MapFact<>(Collections.emptyMap());
-        storeArrays = new MapFact<>(Collections.emptyMap());
-        loadArrays = new MapFact<>(Collections.emptyMap());
-        pta.getVars().forEach(target -> {
-            instanceStoreFields.update(target, new HashSet<>(target.getStoreFields()));
-            instanceLoadFields.update(target, new HashSet<>(target.getLoadFields()));
-            storeArrays.update(target, new HashSet<>(target.getStoreArrays()));
-            loadArrays.update(target, new HashSet<>(target.getLoadArrays()));
-            pta.getVars().forEach(source -> {
-                if (source != target) {
-                    Set<Obj> overlap = new HashSet<>(pta.getPointsToSet(source));
-                    overlap.retainAll(pta.getPointsToSet(target));
-                    if (!overlap.isEmpty()) {
-                        instanceStoreFields.get(target).addAll(source.getStoreFields());
-                        instanceLoadFields.get(target).addAll(source.getLoadFields());
-                        storeArrays.get(target).addAll(source.getStoreArrays());
-                        loadArrays.get(target).addAll(source.getLoadArrays());
-                    }
-                }
-            });
-        });
-        pta.getCallGraph().reachableMethods().forEach(method -> method.getIR().forEach(stmt -> {
-            if (stmt instanceof StoreField) {
-                StoreField storeField = (StoreField) stmt;
-                if (storeField.isStatic()) {
-                    JField field = storeField.getFieldRef().resolve();
-                    Set<StoreField> storeFields = staticStoreFields.get(field);
-                    if (storeFields == null) {
-                        storeFields = new HashSet<>();
-                        staticStoreFields.update(field, storeFields);
-                    }
-                    storeFields.add(storeField);
-                }
-            } else if (stmt instanceof LoadField) {
-                LoadField loadField = (LoadField) stmt;
-                if (loadField.isStatic()) {
-                    JField field = loadField.getFieldRef().resolve();
-                    Set<LoadField> loadFields = staticLoadFields.get(field);
-                    if (loadFields == null) {
-                        loadFields = new HashSet<>();
-                        staticLoadFields.update(field, loadFields);
-                    }
-                    loadFields.add(loadField);
-                }
+        heapValues = Maps.newMap();
+    }
+
+    /**
+     * Meets the value stored by the given store into the heap cells
+     * it may write.
+     */
+    private void storeField(StoreField storeField, CPFact out) {
+        Var rvalue = storeField.getRValue();
+        if (!ConstantPropagation.canHoldInt(rvalue)) {
+            return;
+        }
+        Value value = out.get(rvalue);
+        if (value.isUndef()) {
+            return;
+        }
+        JField field = storeField.getFieldRef().resolve();
+        if (storeField.isStatic()) {
+            writeCell(field, value);
+        } else {
+            Var base = ((InstanceFieldAccess) storeField.getFieldAccess()).getBase();
+            for (Obj obj : pta.getPointsToSet(base)) {
+                writeCell(new FieldCell(obj, field), value);
+            }
+        }
+    }
+
+    /**
+     * Meets the value stored by the given array store into the buckets
+     * it may write.
+     */
+    private void storeArray(StoreArray storeArray, CPFact out) {
+        Var rvalue = storeArray.getRValue();
+        if (!ConstantPropagation.canHoldInt(rvalue)) {
+            return;
+        }
+        ArrayAccess arrayAccess = storeArray.getArrayAccess();
+        Value index = out.get(arrayAccess.getIndex());
+        Value value = out.get(rvalue);
+        if (index.isUndef() || value.isUndef()) {
+            return;
+        }
+        for (Obj obj : pta.getPointsToSet(arrayAccess.getBase())) {
+            Object bucket = index.isConstant()
+                    ? new ArrayIndexCell(obj, index.getConstant())
+                    : new ArrayNACIndexCell(obj);
+            if (writeCell(bucket, value)) {
+                writeCell(new ArrayAllCell(obj), value);
             }
-        }));
+        }
+    }
+
+    /**
+     * @return the value of the given heap cell, and records that
+     * {@code reader} depends on the cell.
+     */
+    private Value readCell(Stmt reader, Object cell) {
+        solver.addCellReader(cell, reader);
+        return heapValues.getOrDefault(cell, Value.getUndef());
+    }
+
+    /**
+     * Meets {@code value} into the given heap cell.
+     *
+     * @return whether the value of the cell changed.
+     */
+    private boolean writeCell(Object cell, Value value) {
+        Value oldValue = heapValues.getOrDefault(cell, Value.getUndef());
+        Value newValue = cp.meetValue(oldValue, value);
+        boolean changed = !newValue.equals(oldValue);
+        if (changed) {
+            heapValues.put(cell, newValue);
+            solver.changeCell(cell);
+        }
+        return changed;
+    }
+
+    private record FieldCell(Obj obj, JField field) {
+    }
+
+    private record ArrayIndexCell(Obj array, int index) {
+    }
+
+    private record ArrayNACIndexCell(Obj array) {
+    }
+
+    private record ArrayAllCell(Obj array) {
     }
 
     @Override
@@ -172,55 +213,37 @@ public class InterConstantPropagation extends
                             CPFact oldOut = out.copy();
                             out.copyFrom(in);
                             LoadField loadField = (LoadField) stmt;
+                            JField field = loadField.getFieldRef().resolve();
+                            Value value;
                             if (loadField.isStatic()) {
-                                Value value = Value.getUndef();
-                                Set<StoreField> storeFields = staticStoreFields.get(loadField.getFieldRef().resolve());
-                                if (storeFields != null) {
-                                    for (StoreField storeField : storeFields) {
-                                        CPFact fact = solver.getOutFact(storeField);
-                                        if (fact != null) {
-                                            value = cp.meetValue(value, fact.get(storeField.getRValue()));
-                                        }
-                                    }
-                                }
-                                out.update(var, value);
-                                return !oldOut.equals(out);
+                                value = readCell(loadField, field);
                             } else {
                                 InstanceFieldAccess fieldAccess = (InstanceFieldAccess) loadField.getFieldAccess();
-                                Set<StoreField> storeFields = instanceStoreFields.get(fieldAccess.getBase());
-                                Value value = Value.getUndef();
-                                if (storeFields != null) {
-                                    for (StoreField storeField : storeFields) {
-                                        if (storeField.getFieldRef().resolve() == loadField.getFieldRef().resolve()) {
-                                            CPFact fact = solver.getOutFact(storeField);
-                                            if (fact != null) {
-                                                value = cp.meetValue(value, fact.get(storeField.getRValue()));
-                                            }
-                                        }
-                                    }
+                                value = Value.getUndef();
+                                for (Obj obj : pta.getPointsToSet(fieldAccess.getBase())) {
+                                    value = cp.meetValue(value,
+                                            readCell(loadField, new FieldCell(obj, field)));
                                 }
-                                out.update(var, value);
-                                return !oldOut.equals(out);
                             }
+                            out.update(var, value);
+                            return !oldOut.equals(out);
                         } else if (stmt instanceof LoadArray) {
                             CPFact oldOut = out.copy();
                             out.copyFrom(in);
                             LoadArray loadArray = (LoadArray) stmt;
                             ArrayAccess loadArrayAccess = loadArray.getArrayAccess();
-                            Set<StoreArray> storeArraySet = storeArrays.get(loadArrayAccess.getBase());
-                            Value c1 = in.get(loadArrayAccess.getIndex());
+                            Value index = in.get(loadArrayAccess.getIndex());
                             Value value = Value.getUndef();
-                            if (storeArraySet != null) {
-                                for (StoreArray storeArray : storeArraySet) {
-                                    CPFact fact = solver.getOutFact(storeArray);
-                                    if (fact != null) {
-                                        Value c2 = fact.get(storeArray.getArrayAccess().getIndex());
-                                        if ((c1.isNAC() && c2.isNAC())
-                                                || (c1.isNAC() && c2.isConstant())
-                                                || (c1.isConstant() && c2.isNAC())
-                                                || (c1.isConstant() && c2.isConstant() && c1.getConstant() == c2.getConstant())) {
-                                            value = cp.meetValue(value, fact.get(storeArray.getRValue()));
-                                        }
+                            if (!index.isUndef()) {
+                                for (Obj obj : pta.getPointsToSet(loadArrayAccess.getBase())) {
+                                    if (index.isConstant()) {
+                                        value = cp.meetValue(value, readCell(loadArray,
+                                                new ArrayIndexCell(obj, index.getConstant())));
+                                        value = cp.meetValue(value, readCell(loadArray,
+                                                new ArrayNACIndexCell(obj)));
+                                    } else {
+                                        value = cp.meetValue(value, readCell(loadArray,
+                                                new ArrayAllCell(obj)));
                                     }
                                 }
                             }
@@ -232,35 +255,10 @@ public class InterConstantPropagation extends
             }
         }
         boolean flag = cp.transferNode(stmt, in, out);
-        if (flag) {
-            if (stmt instanceof StoreField) {
-                StoreField storeField = (StoreField) stmt;
-                if (storeField.isStatic()) {
-                    Set<LoadField> loadFields = staticLoadFields.get(storeField.getFieldRef().resolve());
-                    if (loadFields != null) {
-                        for (LoadField loadField : loadFields) {
-                            if (loadField.getFieldRef().resolve() == storeField.getFieldRef().resolve()) {
-                                solver.addWorklistEntry(loadField);
-                            }
-                        }
-                    }
-                } else {
-                    InstanceFieldAccess fieldAccess = (InstanceFieldAccess) storeField.getFieldAccess();
-                    Set<LoadField> loadFields = instanceLoadFields.get(fieldAccess.getBase());
-                    if (loadFields != null) {
-                        for (LoadField loadField : loadFields) {
-                            if (loadField.getFieldRef().resolve() == storeField.getFieldRef().resolve()) {
-                                solver.addWorklistEntry(loadField);
-                            }
-                        }
-                    }
-                }
-            } else if (stmt instanceof StoreArray) {
-                Set<LoadArray> loadArraySet = loadArrays.get(((StoreArray) stmt).getArrayAccess().getBase());
-                if (loadArraySet != null) {
-                    loadArraySet.forEach(solver::addWorklistEntry);
-                }
-            }
+        if (stmt instanceof StoreField) {
+            storeField((StoreField) stmt, out);
+        } else if (stmt instanceof StoreArray) {
+            storeArray((StoreArray) stmt, out);
         }
         return flag;
     }
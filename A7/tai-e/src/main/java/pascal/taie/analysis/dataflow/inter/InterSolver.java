@@ -23,17 +23,33 @@
 package pascal.taie.analysis.dataflow.inter;
 
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.icfg.CompactICFG;
 import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.analysis.graph.icfg.ICFGEdge;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
 import pascal.taie.util.collection.SetQueue;
 
+import java.util.BitSet;
 import java.util.Queue;
-import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
  * Solver for inter-procedural data-flow analysis.
  * The workload of inter-procedural analysis is heavy, thus we always
  * adopt work-list algorithm for efficiency.
+ * <p>
+ * If the given ICFG is a {@link CompactICFG}, the solver works on node ids:
+ * facts are kept in arrays and the work-list is a queue of ints.
+ * <p>
+ * Besides the ICFG edges, the solver tracks dependencies through abstract
+ * heap cells (any objects with proper equality, defined by the analysis):
+ * nodes declare the cells they read via {@link #addCellReader}, and the
+ * analysis reports via {@link #changeCell} that a write has changed the
+ * abstract value of a cell, which re-adds the readers of the cell to the
+ * work-list. The writers of cells are not recorded: the analysis keeps
+ * the value of each cell, so a reader always reads the current value
+ * and only needs to be re-processed when the value changes.
  */
 class InterSolver<Method, Node, Fact> {
 
@@ -45,16 +61,43 @@ class InterSolver<Method, Node, Fact> {
 
     private Queue<Node> workList;
 
+    /**
+     * Int-indexed view of {@link #icfg}, or null if it is not compact.
+     */
+    private final CompactICFG<Method, Node> compact;
+
+    private IntWorkList intWorkList;
+
+    private Object[] inFacts;
+
+    private Object[] outFacts;
+
+    /**
+     * Edges of {@link #compact} indexed by edge id, each of which is
+     * materialized at its first use, so that the solver does not
+     * allocate edges whenever it visits a node.
+     */
+    private Object[] edges;
+
+    private MultiMap<Object, Node> cellReaders;
+
     InterSolver(InterDataflowAnalysis<Node, Fact> analysis,
                 ICFG<Method, Node> icfg) {
         this.analysis = analysis;
         this.icfg = icfg;
+        this.compact = icfg instanceof CompactICFG<Method, Node> c ? c : null;
     }
 
     DataflowResult<Node, Fact> solve() {
         result = new DataflowResult<>();
-        initialize();
-        doSolve();
+        cellReaders = Maps.newMultiMap();
+        if (compact != null) {
+            initializeCompact();
+            doSolveCompact();
+        } else {
+            initialize();
+            doSolve();
+        }
         return result;
     }
 
@@ -85,12 +128,134 @@ class InterSolver<Method, Node, Fact> {
         }
     }
 
+    private void initializeCompact() {
+        int nodeCount = compact.getNumberOfNodes();
+        inFacts = new Object[nodeCount];
+        outFacts = new Object[nodeCount];
+        edges = new Object[compact.getNumberOfEdges()];
+        icfg.entryMethods().forEach(method -> {
+            int entry = compact.getEntryIndexOf(method);
+            outFacts[entry] = analysis.newBoundaryFact(compact.getNode(entry));
+        });
+        for (int i = 0; i < nodeCount; ++i) {
+            if (outFacts[i] == null) {
+                outFacts[i] = analysis.newInitialFact();
+            }
+        }
+    }
+
+    private void doSolveCompact() {
+        int nodeCount = compact.getNumberOfNodes();
+        intWorkList = new IntWorkList(nodeCount);
+        for (int i = 0; i < nodeCount; ++i) {
+            intWorkList.add(i);
+        }
+        while (!intWorkList.isEmpty()) {
+            int cur = intWorkList.poll();
+            Fact in = analysis.newInitialFact();
+            compact.forEachInEdgeOf(cur, e -> analysis.meetInto(
+                    analysis.transferEdge(getEdge(e),
+                            getFact(outFacts, compact.getEdgeSource(e))), in));
+            inFacts[cur] = in;
+            if (analysis.transferNode(compact.getNode(cur), in,
+                    getFact(outFacts, cur))) {
+                compact.forEachSuccOf(cur, intWorkList::add);
+            }
+        }
+        for (int i = 0; i < nodeCount; ++i) {
+            Node node = compact.getNode(i);
+            result.setInFact(node, getFact(inFacts, i));
+            result.setOutFact(node, getFact(outFacts, i));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Fact getFact(Object[] facts, int node) {
+        return (Fact) facts[node];
+    }
+
+    @SuppressWarnings("unchecked")
+    private ICFGEdge<Node> getEdge(int edge) {
+        Object e = edges[edge];
+        if (e == null) {
+            e = compact.getEdge(edge);
+            edges[edge] = e;
+        }
+        return (ICFGEdge<Node>) e;
+    }
+
     public void addWorklistEntry(Node node) {
-        workList.add(node);
+        if (compact != null) {
+            int i = compact.getIndexOf(node);
+            if (i >= 0) {
+                intWorkList.add(i);
+            }
+        } else {
+            workList.add(node);
+        }
     }
 
     public Fact getOutFact(Node node) {
+        if (compact != null) {
+            int i = compact.getIndexOf(node);
+            return i >= 0 ? getFact(outFacts, i) : null;
+        }
         return result.getOutFact(node);
     }
 
+    /**
+     * Declares that {@code node} reads heap cell {@code cell}, so that
+     * it is re-processed when the value of the cell changes.
+     */
+    public void addCellReader(Object cell, Node node) {
+        cellReaders.put(cell, node);
+    }
+
+    /**
+     * Declares that the value of heap cell {@code cell} has changed,
+     * so that the readers of the cell are added to the work-list.
+     */
+    public void changeCell(Object cell) {
+        cellReaders.get(cell).forEach(this::addWorklistEntry);
+    }
+
+    /**
+     * FIFO work-list of node ids, in which each id appears at most once.
+     */
+    private static class IntWorkList {
+
+        private final int[] queue;
+
+        private final BitSet inQueue;
+
+        private int head = 0;
+
+        private int size = 0;
+
+        private IntWorkList(int capacity) {
+            queue = new int[Math.max(capacity, 1)];
+            inQueue = new BitSet(capacity);
+        }
+
+        private void add(int node) {
+            if (!inQueue.get(node)) {
+                inQueue.set(node);
+                queue[(head + size) % queue.length] = node;
+                ++size;
+            }
+        }
+
+        private int poll() {
+            int node = queue[head];
+            head = (head + 1) % queue.length;
+            --size;
+            inQueue.clear(node);
+            return node;
+        }
+
+        private boolean isEmpty() {
+            return size == 0;
+        }
+    }
+
 }
@@ -0,0 +1,738 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.graph.icfg;
+
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.ClassType;
+import pascal.taie.util.collection.ArraySet;
+import pascal.taie.util.collection.Maps;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+
+/**
+ * Frozen, integer-indexed implementation of {@link ICFG}.
+ * <p>
+ * Each node is assigned a global id in [0, {@link #getNumberOfNodes()}),
+ * and the edges are stored in compressed sparse row (CSR) arrays
+ * together with a kind byte per edge. The information carried by
+ * specific kinds of edges (CFG edges, callees and return metadata)
+ * is kept in side tables, and {@link ICFGEdge} objects are only
+ * materialized on demand. Besides the {@link ICFG} interface, this class
+ * provides an int-based API for clients (e.g., data-flow solvers)
+ * that iterate the graph heavily.
+ * <p>
+ * The graph is immutable once created by {@link #freeze(ICFG)}.
+ *
+ * @param <Method> type of methods
+ * @param <Node>   type of nodes
+ */
+public class CompactICFG<Method, Node> implements ICFG<Method, Node> {
+
+    /**
+     * Kind of {@link NormalEdge}.
+     */
+    public static final byte NORMAL = 0;
+
+    /**
+     * Kind of {@link CallToReturnEdge}.
+     */
+    public static final byte CALL_TO_RETURN = 1;
+
+    /**
+     * Kind of {@link CallEdge}.
+     */
+    public static final byte CALL = 2;
+
+    /**
+     * Kind of {@link ReturnEdge}.
+     */
+    public static final byte RETURN = 3;
+
+    // ---------- nodes and methods ----------
+    private final Object[] nodes;
+
+    private final NodeIndexer indexer;
+
+    private final int[] methodOfNode;
+
+    private final Object[] methods;
+
+    private final Map<Method, Integer> methodIds;
+
+    private final int[] entryOfMethod;
+
+    private final int[] exitOfMethod;
+
+    private final List<Method> entryMethods;
+
+    private final BitSet callSites;
+
+    // ---------- edges in CSR form ----------
+    /**
+     * Out-edges of node i are edges [outOffsets[i], outOffsets[i + 1]).
+     */
+    private final int[] outOffsets;
+
+    private final int[] edgeSources;
+
+    private final int[] edgeTargets;
+
+    private final byte[] edgeKinds;
+
+    /**
+     * Index of each edge into the side table of its kind.
+     */
+    private final int[] edgeAux;
+
+    /**
+     * In-edges of node i are inEdges[inOffsets[i], inOffsets[i + 1]).
+     */
+    private final int[] inOffsets;
+
+    private final int[] inEdges;
+
+    // ---------- side tables ----------
+    /**
+     * CFG edges of normal edges.
+     */
+    private final Object[] cfgEdges;
+
+    /**
+     * Call-to-return edges do not expose their CFG edges, thus we keep
+     * them as they are. There is only one such edge per call site.
+     */
+    private final Object[] callToReturnEdges;
+
+    /**
+     * Callees of call edges.
+     */
+    private final Object[] callees;
+
+    /**
+     * Metadata of return edges.
+     */
+    private final ReturnInfo[] returnInfos;
+
+    private CompactICFG(Builder<Method, Node> builder) {
+        this.nodes = builder.nodes;
+        this.indexer = builder.indexer;
+        this.methodOfNode = builder.methodOfNode;
+        this.methods = builder.methods;
+        this.methodIds = builder.methodIds;
+        this.entryOfMethod = builder.entryOfMethod;
+        this.exitOfMethod = builder.exitOfMethod;
+        this.entryMethods = builder.entryMethods;
+        this.callSites = builder.callSites;
+        this.outOffsets = builder.outOffsets;
+        this.edgeSources = builder.edgeSources;
+        this.edgeTargets = builder.edgeTargets;
+        this.edgeKinds = builder.edgeKinds;
+        this.edgeAux = builder.edgeAux;
+        this.inOffsets = builder.inOffsets;
+        this.inEdges = builder.inEdges;
+        this.cfgEdges = builder.cfgEdges;
+        this.callToReturnEdges = builder.callToReturnEdges;
+        this.callees = builder.callees;
+        this.returnInfos = builder.returnInfos;
+    }
+
+    /**
+     * Creates a frozen copy of the given ICFG.
+     */
+    public static <Method, Node> CompactICFG<Method, Node> freeze(
+            ICFG<Method, Node> icfg) {
+        if (icfg instanceof CompactICFG<Method, Node> compact) {
+            return compact;
+        }
+        return new CompactICFG<>(new Builder<>(icfg));
+    }
+
+    // ---------- int-based API ----------
+
+    @Override
+    public int getNumberOfNodes() {
+        return nodes.length;
+    }
+
+    /**
+     * @return the number of edges in this ICFG.
+     */
+    public int getNumberOfEdges() {
+        return edgeTargets.length;
+    }
+
+    /**
+     * @return the id of given node, or -1 if the node is absent.
+     */
+    public int getIndexOf(Node node) {
+        return indexer.getIndex(node);
+    }
+
+    /**
+     * @return the node of given id.
+     */
+    @SuppressWarnings("unchecked")
+    public Node getNode(int index) {
+        return (Node) nodes[index];
+    }
+
+    /**
+     * @return id of the entry node of the given method.
+     */
+    public int getEntryIndexOf(Method method) {
+        return entryOfMethod[getMethodId(method)];
+    }
+
+    /**
+     * @return true if the node of given id is a call site.
+     */
+    public boolean isCallSite(int node) {
+        return callSites.get(node);
+    }
+
+    /**
+     * Performs the given action for the id of each successor of given node.
+     * A successor is visited once per edge leading to it.
+     */
+    public void forEachSuccOf(int node, IntConsumer action) {
+        for (int e = outOffsets[node]; e < outOffsets[node + 1]; ++e) {
+            action.accept(edgeTargets[e]);
+        }
+    }
+
+    /**
+     * Performs the given action for the id of each in-edge of given node.
+     */
+    public void forEachInEdgeOf(int node, IntConsumer action) {
+        for (int i = inOffsets[node]; i < inOffsets[node + 1]; ++i) {
+            action.accept(inEdges[i]);
+        }
+    }
+
+    /**
+     * Performs the given action for the id of each out-edge of given node.
+     */
+    public void forEachOutEdgeOf(int node, IntConsumer action) {
+        for (int e = outOffsets[node]; e < outOffsets[node + 1]; ++e) {
+            action.accept(e);
+        }
+    }
+
+    /**
+     * @return id of the source node of given edge.
+     */
+    public int getEdgeSource(int edge) {
+        return edgeSources[edge];
+    }
+
+    /**
+     * @return id of the target node of given edge.
+     */
+    public int getEdgeTarget(int edge) {
+        return edgeTargets[edge];
+    }
+
+    /**
+     * @return kind of given edge, i.e., one of {@link #NORMAL},
+     * {@link #CALL_TO_RETURN}, {@link #CALL} and {@link #RETURN}.
+     */
+    public byte getEdgeKind(int edge) {
+        return edgeKinds[edge];
+    }
+
+    /**
+     * Materializes the {@link ICFGEdge} of given edge id.
+     * Each call creates a new edge object.
+     */
+    @SuppressWarnings("unchecked")
+    public ICFGEdge<Node> getEdge(int edge) {
+        int aux = edgeAux[edge];
+        return switch (edgeKinds[edge]) {
+            case NORMAL -> new NormalEdge<>((Edge<Node>) cfgEdges[aux]);
+            case CALL_TO_RETURN -> (ICFGEdge<Node>) callToReturnEdges[aux];
+            case CALL -> new CallEdge<>(getNode(edgeSources[edge]),
+                    getNode(edgeTargets[edge]), (JMethod) callees[aux]);
+            default -> {
+                ReturnInfo info = returnInfos[aux];
+                yield new ReturnEdge<>(getNode(edgeSources[edge]),
+                        getNode(edgeTargets[edge]), getNode(info.callSite()),
+                        info.returnVars(), info.exceptions());
+            }
+        };
+    }
+
+    // ---------- ICFG API ----------
+
+    @Override
+    public Stream<Method> entryMethods() {
+        return entryMethods.stream();
+    }
+
+    @Override
+    public Set<ICFGEdge<Node>> getInEdgesOf(Node node) {
+        int i = indexer.getIndex(node);
+        if (i < 0) {
+            return Set.of();
+        }
+        return new EdgeSet(inEdges, inOffsets[i], inOffsets[i + 1]);
+    }
+
+    @Override
+    public Set<ICFGEdge<Node>> getOutEdgesOf(Node node) {
+        int i = indexer.getIndex(node);
+        if (i < 0) {
+            return Set.of();
+        }
+        return new EdgeSet(null, outOffsets[i], outOffsets[i + 1]);
+    }
+
+    @Override
+    public Set<Method> getCalleesOf(Node callSite) {
+        int i = indexer.getIndex(callSite);
+        if (i < 0) {
+            return Set.of();
+        }
+        Set<Method> result = new ArraySet<>();
+        for (int e = outOffsets[i]; e < outOffsets[i + 1]; ++e) {
+            if (edgeKinds[e] == CALL) {
+                result.add(getContainingMethodOf(edgeTargets[e]));
+            }
+        }
+        return Collections.unmodifiableSet(result);
+    }
+
+    @Override
+    public Set<Node> getReturnSitesOf(Node callSite) {
+        return collectNeighbors(indexer.getIndex(callSite), true, CALL_TO_RETURN);
+    }
+
+    @Override
+    public Node getEntryOf(Method method) {
+        return getNode(entryOfMethod[getMethodId(method)]);
+    }
+
+    @Override
+    public Node getExitOf(Method method) {
+        return getNode(exitOfMethod[getMethodId(method)]);
+    }
+
+    @Override
+    public Set<Node> getCallersOf(Method method) {
+        return collectNeighbors(getEntryIndexOf(method), false, CALL);
+    }
+
+    @Override
+    public Method getContainingMethodOf(Node node) {
+        return getContainingMethodOf(indexer.getIndex(node));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Method getContainingMethodOf(int node) {
+        return (Method) methods[methodOfNode[node]];
+    }
+
+    @Override
+    public boolean isCallSite(Node node) {
+        int i = indexer.getIndex(node);
+        return i >= 0 && callSites.get(i);
+    }
+
+    @Override
+    public boolean hasNode(Node node) {
+        return indexer.getIndex(node) >= 0;
+    }
+
+    @Override
+    public boolean hasEdge(Node source, Node target) {
+        int s = indexer.getIndex(source);
+        int t = indexer.getIndex(target);
+        if (s < 0 || t < 0) {
+            return false;
+        }
+        for (int e = outOffsets[s]; e < outOffsets[s + 1]; ++e) {
+            if (edgeTargets[e] == t) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Set<Node> getPredsOf(Node node) {
+        return collectNeighbors(indexer.getIndex(node), false, -1);
+    }
+
+    @Override
+    public Set<Node> getSuccsOf(Node node) {
+        return collectNeighbors(indexer.getIndex(node), true, -1);
+    }
+
+    @Override
+    public Set<Node> getNodes() {
+        return new AbstractSet<>() {
+
+            @Override
+            public boolean contains(Object o) {
+                return indexer.getIndex(o) >= 0;
+            }
+
+            @Override
+            public Iterator<Node> iterator() {
+                return new IndexIterator<>(nodes.length, CompactICFG.this::getNode);
+            }
+
+            @Override
+            public int size() {
+                return nodes.length;
+            }
+        };
+    }
+
+    private int getMethodId(Method method) {
+        Integer id = methodIds.get(method);
+        if (id == null) {
+            throw new IllegalArgumentException(method + " is not in this ICFG");
+        }
+        return id;
+    }
+
+    /**
+     * Collects successors (or predecessors) of given node that are connected
+     * by edges of given kind (or of any kind if kind is negative).
+     */
+    private Set<Node> collectNeighbors(int node, boolean succ, int kind) {
+        if (node < 0) {
+            return Set.of();
+        }
+        Set<Node> result = new ArraySet<>();
+        if (succ) {
+            for (int e = outOffsets[node]; e < outOffsets[node + 1]; ++e) {
+                if (kind < 0 || edgeKinds[e] == kind) {
+                    result.add(getNode(edgeTargets[e]));
+                }
+            }
+        } else {
+            for (int i = inOffsets[node]; i < inOffsets[node + 1]; ++i) {
+                int e = inEdges[i];
+                if (kind < 0 || edgeKinds[e] == kind) {
+                    result.add(getNode(edgeSources[e]));
+                }
+            }
+        }
+        return Collections.unmodifiableSet(result);
+    }
+
+    /**
+     * Set view of a range of edges. If {@code edges} is null, the range
+     * refers to edge ids directly, otherwise it refers to a range of
+     * {@code edges}. Edges in a range are distinct as the source ICFG
+     * stores them in sets.
+     */
+    private class EdgeSet extends AbstractSet<ICFGEdge<Node>> {
+
+        private final int[] edges;
+
+        private final int from;
+
+        private final int to;
+
+        private EdgeSet(int[] edges, int from, int to) {
+            this.edges = edges;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Iterator<ICFGEdge<Node>> iterator() {
+            return new IndexIterator<>(to - from, i -> edges == null ?
+                    getEdge(from + i) : getEdge(edges[from + i]));
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+
+    private static class IndexIterator<R> implements Iterator<R> {
+
+        private final int size;
+
+        private final IntFunction<R> mapper;
+
+        private int next = 0;
+
+        private IndexIterator(int size, IntFunction<R> mapper) {
+            this.size = size;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        @Override
+        public R next() {
+            if (next >= size) {
+                throw new NoSuchElementException();
+            }
+            return mapper.apply(next++);
+        }
+    }
+
+    /**
+     * Metadata of a return edge.
+     *
+     * @param callSite   id of the call site that corresponds to the edge
+     * @param returnVars the variables that hold the return values
+     * @param exceptions the exceptions that may be thrown out
+     */
+    private record ReturnInfo(int callSite, Collection<Var> returnVars,
+                              Collection<ClassType> exceptions) {
+    }
+
+    /**
+     * Open-addressing hash table from nodes to their ids,
+     * which avoids boxing an Integer for every node.
+     */
+    private static class NodeIndexer {
+
+        private final Object[] keys;
+
+        private final int[] ids;
+
+        private final int mask;
+
+        private NodeIndexer(Object[] nodes) {
+            int capacity = Integer.highestOneBit(Math.max(nodes.length, 1) * 2) << 1;
+            keys = new Object[capacity];
+            ids = new int[capacity];
+            mask = capacity - 1;
+            for (int i = 0; i < nodes.length; ++i) {
+                int slot = slotOf(nodes[i]);
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = nodes[i];
+                ids[slot] = i;
+            }
+        }
+
+        private int slotOf(Object node) {
+            int h = node.hashCode();
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        private int getIndex(Object node) {
+            if (node == null) {
+                return -1;
+            }
+            for (int slot = slotOf(node); keys[slot] != null;
+                 slot = (slot + 1) & mask) {
+                if (keys[slot] == node || keys[slot].equals(node)) {
+                    return ids[slot];
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Converts a (mutable) ICFG to the arrays of {@link CompactICFG}.
+     */
+    private static class Builder<Method, Node> {
+
+        private final Object[] nodes;
+
+        private final NodeIndexer indexer;
+
+        private final int[] methodOfNode;
+
+        private final Object[] methods;
+
+        private final Map<Method, Integer> methodIds = Maps.newMap();
+
+        private final int[] entryOfMethod;
+
+        private final int[] exitOfMethod;
+
+        private final List<Method> entryMethods;
+
+        private final BitSet callSites = new BitSet();
+
+        private final int[] outOffsets;
+
+        private final int[] edgeSources;
+
+        private final int[] edgeTargets;
+
+        private final byte[] edgeKinds;
+
+        private final int[] edgeAux;
+
+        private final int[] inOffsets;
+
+        private final int[] inEdges;
+
+        private Object[] cfgEdges;
+
+        private Object[] callToReturnEdges;
+
+        private Object[] callees;
+
+        private ReturnInfo[] returnInfos;
+
+        private Builder(ICFG<Method, Node> icfg) {
+            nodes = icfg.getNodes().toArray();
+            indexer = new NodeIndexer(nodes);
+            int nodeCount = nodes.length;
+            // number methods and nodes
+            methodOfNode = new int[nodeCount];
+            for (int i = 0; i < nodeCount; ++i) {
+                @SuppressWarnings("unchecked")
+                Node node = (Node) nodes[i];
+                Method method = icfg.getContainingMethodOf(node);
+                methodOfNode[i] = methodIds.computeIfAbsent(
+                        method, m -> methodIds.size());
+                if (icfg.isCallSite(node)) {
+                    callSites.set(i);
+                }
+            }
+            methods = new Object[methodIds.size()];
+            entryOfMethod = new int[methods.length];
+            exitOfMethod = new int[methods.length];
+            methodIds.forEach((method, id) -> {
+                methods[id] = method;
+                entryOfMethod[id] = indexer.getIndex(icfg.getEntryOf(method));
+                exitOfMethod[id] = indexer.getIndex(icfg.getExitOf(method));
+            });
+            entryMethods = icfg.entryMethods().toList();
+            // build out-edges
+            outOffsets = new int[nodeCount + 1];
+            for (int i = 0; i < nodeCount; ++i) {
+                @SuppressWarnings("unchecked")
+                Node node = (Node) nodes[i];
+                outOffsets[i + 1] = outOffsets[i] + icfg.getOutEdgesOf(node).size();
+            }
+            int edgeCount = outOffsets[nodeCount];
+            edgeSources = new int[edgeCount];
+            edgeTargets = new int[edgeCount];
+            edgeKinds = new byte[edgeCount];
+            edgeAux = new int[edgeCount];
+            SideTables tables = new SideTables();
+            int[] inDegrees = new int[nodeCount + 1];
+            for (int i = 0; i < nodeCount; ++i) {
+                @SuppressWarnings("unchecked")
+                Node node = (Node) nodes[i];
+                int e = outOffsets[i];
+                for (ICFGEdge<Node> edge : icfg.getOutEdgesOf(node)) {
+                    int target = indexer.getIndex(edge.getTarget());
+                    edgeSources[e] = i;
+                    edgeTargets[e] = target;
+                    tables.add(e, edge);
+                    ++inDegrees[target + 1];
+                    ++e;
+                }
+            }
+            tables.trim();
+            // build in-edges by counting sort on targets
+            inOffsets = new int[nodeCount + 1];
+            for (int i = 0; i < nodeCount; ++i) {
+                inOffsets[i + 1] = inOffsets[i] + inDegrees[i + 1];
+            }
+            inEdges = new int[edgeCount];
+            int[] next = Arrays.copyOf(inOffsets, nodeCount);
+            for (int e = 0; e < edgeCount; ++e) {
+                inEdges[next[edgeTargets[e]]++] = e;
+            }
+        }
+
+        private class SideTables {
+
+            private int normal, callToReturn, call, ret;
+
+            private SideTables() {
+                cfgEdges = new Object[16];
+                callToReturnEdges = new Object[16];
+                callees = new Object[16];
+                returnInfos = new ReturnInfo[16];
+            }
+
+            private void add(int e, ICFGEdge<Node> edge) {
+                if (edge instanceof NormalEdge<Node> normalEdge) {
+                    edgeKinds[e] = NORMAL;
+                    cfgEdges = ensureCapacity(cfgEdges, normal);
+                    cfgEdges[normal] = normalEdge.getCFGEdge();
+                    edgeAux[e] = normal++;
+                } else if (edge instanceof CallToReturnEdge) {
+                    edgeKinds[e] = CALL_TO_RETURN;
+                    callToReturnEdges = ensureCapacity(callToReturnEdges, callToReturn);
+                    callToReturnEdges[callToReturn] = edge;
+                    edgeAux[e] = callToReturn++;
+                } else if (edge instanceof CallEdge<Node> callEdge) {
+                    edgeKinds[e] = CALL;
+                    callees = ensureCapacity(callees, call);
+                    callees[call] = callEdge.getCallee();
+                    edgeAux[e] = call++;
+                } else {
+                    ReturnEdge<Node> returnEdge = (ReturnEdge<Node>) edge;
+                    edgeKinds[e] = RETURN;
+                    returnInfos = ensureCapacity(returnInfos, ret);
+                    returnInfos[ret] = new ReturnInfo(
+                            indexer.getIndex(returnEdge.getCallSite()),
+                            returnEdge.getReturnVars(),
+                            returnEdge.getExceptions());
+                    edgeAux[e] = ret++;
+                }
+            }
+
+            private void trim() {
+                cfgEdges = Arrays.copyOf(cfgEdges, normal);
+                callToReturnEdges = Arrays.copyOf(callToReturnEdges, callToReturn);
+                callees = Arrays.copyOf(callees, call);
+                returnInfos = Arrays.copyOf(returnInfos, ret);
+            }
+
+            private static <T> T[] ensureCapacity(T[] array, int size) {
+                return size < array.length ?
+                        array : Arrays.copyOf(array, array.length * 2);
+            }
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.pta.PointerAnalysisResultImpl;
+import pascal.taie.analysis.pta.core.cs.CSCallGraph;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.InstanceField;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.language.classes.JField;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pointer analysis result which caches the context-insensitive projection
+ * of the context-sensitive result, so that repeated context-insensitive
+ * queries (e.g., of inter-procedural constant propagation) do not merge
+ * the points-to sets of all contexts again.
+ * <p>
+ * The points-to sets of all variables are projected at the first query,
+ * in parallel over the variables. Equal projected sets are shared.
+ * The points-to sets of fields are projected and cached per query.
+ * <p>
+ * The projection only reads the context-sensitive result: field pointers
+ * are looked up in an index built from {@link CSManager#getInstanceFields()}
+ * and {@link CSManager#getStaticFields()}, as the lookups of {@link CSManager}
+ * may create pointers, which is not thread-safe. Thus, concurrent queries
+ * are safe once the analysis has finished.
+ */
+class ProjectedPointerAnalysisResult extends PointerAnalysisResultImpl {
+
+    private static final Logger logger = LogManager.getLogger(ProjectedPointerAnalysisResult.class);
+
+    private final CSManager csManager;
+
+    /**
+     * Projected points-to sets of variables, built at the first query.
+     */
+    private volatile Map<Var, Set<Obj>> varPointsTo;
+
+    /**
+     * Index of the instance field pointers of each object, built at the
+     * first query on instance fields.
+     */
+    private volatile Map<CSObj, Map<JField, InstanceField>> instanceFields;
+
+    private final Map<Var, Map<JField, Set<Obj>>> instanceFieldPointsTo =
+            new ConcurrentHashMap<>();
+
+    private final Map<JField, Set<Obj>> staticFieldPointsTo =
+            new ConcurrentHashMap<>();
+
+    ProjectedPointerAnalysisResult(CSManager csManager, CSCallGraph csCallGraph) {
+        super(csManager, csCallGraph);
+        this.csManager = csManager;
+    }
+
+    @Override
+    public Set<Obj> getPointsToSet(Var var) {
+        return getVarPointsTo().getOrDefault(var, Set.of());
+    }
+
+    @Override
+    public Set<Obj> getPointsToSet(Var base, JField field) {
+        if (field.isStatic()) {
+            logger.warn("{} is not instance field", field);
+        }
+        return instanceFieldPointsTo
+                .computeIfAbsent(base, v -> new ConcurrentHashMap<>())
+                .computeIfAbsent(field, f -> {
+                    Map<CSObj, Map<JField, InstanceField>> fields = getInstanceFieldIndex();
+                    List<InstanceField> pointers = new ArrayList<>();
+                    for (CSVar csVar : csManager.getCSVarsOf(base)) {
+                        for (CSObj csObj : csVar.getPointsToSet()) {
+                            InstanceField pointer = fields
+                                    .getOrDefault(csObj, Map.of()).get(f);
+                            if (pointer != null) {
+                                pointers.add(pointer);
+                            }
+                        }
+                    }
+                    return removeContexts(pointers);
+                });
+    }
+
+    @Override
+    public Set<Obj> getPointsToSet(JField field) {
+        if (!field.isStatic()) {
+            logger.warn("{} is not static field", field);
+        }
+        return staticFieldPointsTo.computeIfAbsent(field,
+                f -> removeContexts(csManager.getStaticFields()
+                        .stream()
+                        .filter(p -> p.getField().equals(f))
+                        .toList()));
+    }
+
+    private Map<Var, Set<Obj>> getVarPointsTo() {
+        Map<Var, Set<Obj>> result = varPointsTo;
+        if (result == null) {
+            synchronized (this) {
+                result = varPointsTo;
+                if (result == null) {
+                    result = projectVars();
+                    varPointsTo = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private Map<CSObj, Map<JField, InstanceField>> getInstanceFieldIndex() {
+        Map<CSObj, Map<JField, InstanceField>> result = instanceFields;
+        if (result == null) {
+            synchronized (this) {
+                result = instanceFields;
+                if (result == null) {
+                    result = new HashMap<>();
+                    for (InstanceField p : csManager.getInstanceFields()) {
+                        result.computeIfAbsent(p.getBase(), o -> new HashMap<>())
+                                .put(p.getField(), p);
+                    }
+                    instanceFields = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Projects the points-to sets of all variables. The projection only
+     * reads the context-sensitive result, thus it runs in parallel.
+     */
+    private Map<Var, Set<Obj>> projectVars() {
+        Map<Var, Set<Obj>> result = new ConcurrentHashMap<>();
+        Map<Set<Obj>, Set<Obj>> canonicalSets = new ConcurrentHashMap<>();
+        new ArrayList<>(csManager.getVars()).parallelStream().forEach(var -> {
+            Set<Obj> objs = removeContexts(csManager.getCSVarsOf(var));
+            if (!objs.isEmpty()) {
+                result.put(var, canonicalSets.computeIfAbsent(objs, s -> s));
+            }
+        });
+        logger.info("Projected points-to sets of {} variables" +
+                " into {} distinct sets", result.size(), canonicalSets.size());
+        return result;
+    }
+
+    /**
+     * @return the objects (without heap contexts) pointed to by given pointers.
+     */
+    private static Set<Obj> removeContexts(Collection<? extends Pointer> pointers) {
+        Set<Obj> objs = Sets.newHybridSet();
+        for (Pointer pointer : pointers) {
+            for (CSObj csObj : pointer.getPointsToSet()) {
+                objs.add(csObj.getObject());
+            }
+        }
+        return objs.isEmpty() ? Set.of() : Set.copyOf(objs);
+    }
+}
@@ -31,8 +31,12 @@ public class InterCPAliasTest {
     private static final String CLASS_PATH = "src/test/resources/dataflow/constprop/alias";
 
     void test(String inputClass) {
+        test(inputClass, "");
+    }
+
+    void test(String inputClass, String extraOpts) {
         Tests.test(inputClass, CLASS_PATH, InterConstantPropagation.ID,
-                "edge-refine:false;alias-aware:true;pta:cspta",
+                "edge-refine:false;alias-aware:true;pta:cspta" + extraOpts,
                 "-a", "cspta=cs:2-obj", "-a", "cg=algorithm:cspta"
                 //, "-a", "icfg=dump:true" // <-- uncomment this code if you want
                                            // to output ICFGs for the test cases
@@ -44,6 +48,11 @@ public class InterCPAliasTest {
         test("Array");
     }
 
+    @Test
+    public void testArrayCompactICFG() {
+        test("Array", ";compact-icfg:true");
+    }
+
     @Test
     public void testArrayInter2() {
         test("ArrayInter2");